@@ -240,18 +240,15 @@ abstract public class World implements SoundConstants{
   }
   
   /** 
-   * Pause at the start when building GUIs and installing listeners
-   * and at the end so the last tunes are heard
+   * Pause at the end so the last tunes are heard
    */
   void sleepSome(int miliseconds){
-    // pause a bit so that two canvases do not compete when being opened
-    // almost at the same time
-    long start = System.currentTimeMillis();
-    long tmp = System.currentTimeMillis();
-    //System.out.println("Going to sleep.");
-
-    while(tmp - start < miliseconds){
-      tmp = System.currentTimeMillis();
+    // sleep rather than spin, so the CPU is free while the tunes play
+    try{
+      Thread.sleep(miliseconds);
+    }
+    catch(InterruptedException e){
+      Thread.currentThread().interrupt();
     }
   }
   
@@ -274,15 +271,9 @@ abstract public class World implements SoundConstants{
     // record that the world is running 
     this.worldExists = true;
     
-    // pause a bit so that two canvases do not compete when being opened
-    // almost at the same time
-    long start = System.currentTimeMillis();
-    long tmp = System.currentTimeMillis();
-    // System.out.println("Going to sleep.");
-  
-    while(tmp - start < 1000){
-      tmp = System.currentTimeMillis();
-    }
+    // wait (without spinning) until the canvas has been realized, so that two
+    // canvases do not compete when being opened almost at the same time
+    Readiness.awaitPendingEvents();
 
     // set the drawing size to the given width and height
     this.theCanvas.painter.setSize(w, h);
@@ -307,15 +298,9 @@ abstract public class World implements SoundConstants{
     // draw the initial world
     this.drawWorld("");
     
-    // pause again after the Canvas is shown to make sure 
+    // wait again until the Canvas is showing, to make sure 
     // all listeners and the timer are installed for theCanvas
-    start = System.currentTimeMillis();
-    tmp = System.currentTimeMillis();
-    // System.out.println("Going to sleep again.");
-    
-    while(tmp - start < 1000){
-      tmp = System.currentTimeMillis();
-    }
+    Readiness.awaitShowing(this.theCanvas);
     
     // and add the timer -- start it if speed is greater than 0
     this.mytime = new MyTimer(this, speed);
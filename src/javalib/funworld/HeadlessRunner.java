@@ -0,0 +1,194 @@
+package javalib.funworld;
+
+import javalib.worldimages.Posn;
+import javalib.worldimages.WorldImage;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+
+/**
+ * Drives a <code>{@link World World}</code> with no window, timer, or listeners.
+ *
+ * <p>Ticks, key events, and mouse events are delivered to the world only when the
+ * caller asks for them, through the same <code>process...</code> methods the
+ * timer and the adapters use, so a world can be simulated for thousands of ticks
+ * per second on a machine with no display.  The current scene is rendered into
+ * an off-screen <code>BufferedImage</code> only when <code>render()</code> is called.</p>
+ *
+ * <p>Unlike a world started with <code>bigBang</code>, a runtime exception thrown by
+ * one of the world's event handlers propagates to the caller instead of halting the JVM.</p>
+ *
+ * <p>Get one by calling <code>bigBangHeadless(width, height)</code> on a world.</p>
+ *
+ * @version Oct. 18, 2026
+ */
+public class HeadlessRunner
+{
+    /** the current <code>{@link World World}</code> that handles the events */
+    private World currentWorld;
+
+    /** the width of the (imaginary) canvas */
+    private int width;
+
+    /** the height of the (imaginary) canvas */
+    private int height;
+
+    /**
+     * Start the given world with no canvas.
+     *
+     * @param world   the world to run
+     * @param width   the width of the (imaginary) canvas
+     * @param height  the height of the (imaginary) canvas
+     * @throws IllegalStateException if the world is already running
+     */
+    HeadlessRunner (World world, int width, int height)
+    {
+        if (! world.startHeadless (width, height))
+            throw new IllegalStateException ("Only one world can run at a time");
+        this.currentWorld = world;
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Get the world as it stands after all the events delivered so far.
+     *
+     * @return the current <code>{@link World World}</code>
+     */
+    public World getWorld ()
+    {
+        return this.currentWorld;
+    }
+
+    /**
+     * Has the world ended (through <code>worldEnds</code> or <code>endOfWorld</code>)?
+     *
+     * @return <code>true</code> if no more events will be delivered to the world
+     */
+    public boolean hasEnded ()
+    {
+        return ! this.currentWorld.isRunning();
+    }
+
+    /**
+     * Deliver one clock tick.
+     *
+     * @return the <code>{@link World World}</code> after the tick
+     */
+    public World tick ()
+    {
+        this.currentWorld = this.currentWorld.processTick();
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver the given number of clock ticks, stopping early if the world ends.
+     *
+     * @param ticks   how many ticks to deliver
+     * @return the <code>{@link World World}</code> after the last tick
+     */
+    public World tick (int ticks)
+    {
+        for (int ii = 0; ii < ticks && ! this.hasEnded(); ++ii)
+        {
+            this.currentWorld = this.currentWorld.processTick();
+        }
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a key event, exactly as the key adapter would report it.
+     *
+     * @param ke   the key, <em>e.g.</em> "a", "left", "escape", "f1"
+     * @return the <code>{@link World World}</code> after the key event
+     */
+    public World keyEvent (String ke)
+    {
+        this.currentWorld = this.currentWorld.processKeyEvent (ke);
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a mouse click.
+     *
+     * @param mouse   the location of the click, relative to the canvas
+     * @return the <code>{@link World World}</code> after the mouse event
+     */
+    public World mouseClicked (Posn mouse)
+    {
+        this.currentWorld = this.currentWorld.processMouseClicked (mouse);
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a mouse motion.
+     *
+     * @param mouse   the new location of the mouse, relative to the canvas
+     * @return the <code>{@link World World}</code> after the mouse event
+     */
+    public World mouseMoved (Posn mouse)
+    {
+        this.currentWorld = this.currentWorld.processMouseMoved (mouse);
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a mouse drag.
+     *
+     * @param mouse   the new location of the mouse, relative to the canvas
+     * @return the <code>{@link World World}</code> after the mouse event
+     */
+    public World mouseDragged (Posn mouse)
+    {
+        this.currentWorld = this.currentWorld.processMouseDragged (mouse);
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a mouse press.
+     *
+     * @param mouse   the location of the mouse, relative to the canvas
+     * @return the <code>{@link World World}</code> after the mouse event
+     */
+    public World mousePressed (Posn mouse)
+    {
+        this.currentWorld = this.currentWorld.processMousePressed (mouse);
+        return this.currentWorld;
+    }
+
+    /**
+     * Deliver a mouse release.
+     *
+     * @param mouse   the location of the mouse, relative to the canvas
+     * @return the <code>{@link World World}</code> after the mouse event
+     */
+    public World mouseReleased (Posn mouse)
+    {
+        this.currentWorld = this.currentWorld.processMouseReleased (mouse);
+        return this.currentWorld;
+    }
+
+    /**
+     * Render the current scene the way the canvas would show it: <code>makeImage()</code>
+     * while the world is running, or the last image once it has ended, drawn over a
+     * white background.
+     *
+     * @return a new <code>BufferedImage</code> the size of the (imaginary) canvas
+     */
+    public BufferedImage render ()
+    {
+        WorldImage scene = this.hasEnded() ?
+            this.currentWorld.lastWorld.lastImage :
+            this.currentWorld.makeImage();
+
+        BufferedImage buffer = new BufferedImage (Math.max (this.width, 1), Math.max (this.height, 1),
+                                                  BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = buffer.createGraphics();
+        g.setPaint (Color.white);
+        g.fillRect (0, 0, buffer.getWidth(), buffer.getHeight());
+        scene.draw (g);
+        g.dispose();
+        return buffer;
+    }
+}
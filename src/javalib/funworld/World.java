@@ -1,6 +1,7 @@
 package javalib.funworld;
 
 import javalib.worldcanvas.WorldCanvas;
+import javalib.worldcanvas.Readiness;
 import javalib.worldimages.*;
 
 import java.awt.Color;
@@ -45,6 +46,12 @@ abstract public class World implements Drawable{
     /** how much wall-clock time since the animation started **/
     private transient long startTime;
     
+    /** true if this world is being driven by a <code>{@link HeadlessRunner HeadlessRunner}</code> rather than a canvas */
+    private transient boolean headless = false;
+    
+    /** the width and height given to <code>bigBangHeadless</code>, since there's no canvas to ask */
+    private transient int headlessWidth, headlessHeight;
+    
     /** the timer for this world */
     protected transient MyTimer mytime;
     
@@ -104,15 +111,9 @@ abstract public class World implements Drawable{
         
         //this.imageList = new HashMap<String, PictureImage>();
         
-        // pause a bit so that two canvases do not compete when being opened
-        // almost at the same time
-        long start = System.currentTimeMillis();
-        long tmp = System.currentTimeMillis();
-        // System.out.println("Going to sleep.");
-        
-        while(tmp - start < 1000){
-            tmp = System.currentTimeMillis();
-        }
+        // wait (without spinning) until the canvas has been realized, so that two
+        // canvases do not compete when being opened almost at the same time
+        Readiness.awaitPendingEvents();
         
         // add the key listener to the frame for our canvas
         this.ka = new MyKeyAdapter(this);
@@ -133,15 +134,9 @@ abstract public class World implements Drawable{
         // draw the initial world
         this.drawWorld(" ");
         
-        // pause again after the Canvas is shown to make sure 
+        // wait again until the Canvas is showing, to make sure 
         // all listeners and the timer are installed for theCanvas
-        start = System.currentTimeMillis();
-        tmp = System.currentTimeMillis();
-        // System.out.println("Going to sleep again.");
-        
-        while(tmp - start < 1000){
-            tmp = System.currentTimeMillis();
-        }
+        Readiness.awaitShowing(this.theCanvas.panel);
         
         // Now that we're done waiting for things to install, record the "start time".
         this.startTime = System.currentTimeMillis();
@@ -198,13 +193,81 @@ abstract public class World implements Drawable{
     {
         return this.bigBang (0.0);
     }
+    
+    /**
+     * Start the world without a window, for running it on a machine with no display
+     * (<em>e.g.</em> to grade or simulate many worlds in a batch job).
+     * 
+     * <p>No canvas, listeners, or timer are created; instead, the returned
+     * <code>{@link HeadlessRunner HeadlessRunner}</code> delivers ticks, key events, and
+     * mouse events to the world directly, as fast as the caller asks for them, and
+     * renders <code>makeImage()</code> into an off-screen image only when asked to.</p>
+     * 
+     * @param w the width of the (imaginary) canvas
+     * @param h the height of the (imaginary) canvas
+     * @return a <code>{@link HeadlessRunner HeadlessRunner}</code> driving this world
+     * @since Oct. 18, 2026
+     */
+    public HeadlessRunner bigBangHeadless (int w, int h)
+    {
+        return new HeadlessRunner (this, w, h);
+    }
+    
+    /**
+     * Start the world without a window and run it for the given number of ticks,
+     * or until it ends, whichever comes first.
+     * 
+     * @param w the width of the (imaginary) canvas
+     * @param h the height of the (imaginary) canvas
+     * @param ticks how many clock ticks to deliver
+     * @return the <code>{@link World World}</code> after the last tick
+     * @since Oct. 18, 2026
+     */
+    public World bigBangHeadless (int w, int h, int ticks)
+    {
+        return this.bigBangHeadless (w, h).tick (ticks);
+    }
+    
+    /**
+     * Mark this world as running with no canvas.  Called only by
+     * <code>{@link HeadlessRunner HeadlessRunner}</code>.
+     * 
+     * @param w the width of the (imaginary) canvas
+     * @param h the height of the (imaginary) canvas
+     * @return <code>false</code> if some world is already running here, <code>true</code> otherwise
+     */
+    boolean startHeadless (int w, int h)
+    {
+        if (this.worldExists)
+            return false;
+        this.headless = true;
+        this.headlessWidth = w;
+        this.headlessHeight = h;
+        this.startTime = System.currentTimeMillis();
+        this.worldExists = true;
+        return true;
+    }
+    
+    /**
+     * Is this world still running, <em>i.e.</em> started and neither stopped nor ended?
+     * 
+     * @return the value of <code>worldExists</code>
+     */
+    boolean isRunning ()
+    {
+        return this.worldExists;
+    }
        
     /**
      * Stop the world, close all listeners and the timer, draw the last 
      * <code>Scene</code>.
      */
     protected void stopWorld(){
-      if (worldExists){
+      if (worldExists && this.headless){
+        // there are no listeners, timer, or canvas to shut down
+        this.worldExists = false;
+      }
+      else if (worldExists){
         // remove listeners and set worldExists to false
         this.mytime.timer.stop();
         this.worldExists = false;
@@ -214,8 +277,7 @@ abstract public class World implements Drawable{
         System.out.println("The world stopped.");
         
         // draw the final scene of the world with the end of time message
-        this.theCanvas.clear();
-        this.theCanvas.drawImage(this.lastWorld.lastImage);
+        this.theCanvas.drawScene(this.lastWorld.lastImage);
       }
     }
     
@@ -290,6 +352,8 @@ abstract public class World implements Drawable{
                 return this;
         } 
         catch(RuntimeException re){
+            if (this.headless)
+                throw re;
             re.printStackTrace();
             this.drawWorld("");
             //throw re;
@@ -357,6 +421,8 @@ abstract public class World implements Drawable{
             
         }
         catch(RuntimeException re){
+            if (this.headless)
+                throw re;
             re.printStackTrace();
             this.drawWorld("");
             //throw re;
@@ -403,6 +469,8 @@ abstract public class World implements Drawable{
                 return this;
         } 
         catch(RuntimeException re){
+            if (this.headless)
+                throw re;
             re.printStackTrace();
             this.drawWorld("");
             //throw re;
@@ -431,6 +499,8 @@ abstract public class World implements Drawable{
                 return this;
         } 
         catch(RuntimeException re){
+            if (this.headless)
+                throw re;
             re.printStackTrace();
             this.drawWorld("");
             //throw re;
@@ -459,6 +529,8 @@ abstract public class World implements Drawable{
                 return this;
         } 
         catch(RuntimeException re){
+            if (this.headless)
+                throw re;
             re.printStackTrace();
             this.drawWorld("");
             //throw re;
@@ -528,6 +600,8 @@ abstract public class World implements Drawable{
           return this;
       } 
       catch(RuntimeException re){
+        if (this.headless)
+          throw re;
         re.printStackTrace();
         this.drawWorld("");
         //throw re;
@@ -572,6 +646,8 @@ abstract public class World implements Drawable{
           return this;
       } 
       catch(RuntimeException re){
+        if (this.headless)
+          throw re;
         re.printStackTrace();
         this.drawWorld("");
         //throw re;
@@ -616,6 +692,8 @@ abstract public class World implements Drawable{
           return this;
       } 
       catch(RuntimeException re){
+        if (this.headless)
+          throw re;
         re.printStackTrace();
         this.drawWorld("");
         //throw re;
@@ -659,6 +737,8 @@ abstract public class World implements Drawable{
           return this;
       } 
       catch(RuntimeException re){
+        if (this.headless)
+          throw re;
         re.printStackTrace();
         this.drawWorld("");
         //throw re;
@@ -691,7 +771,17 @@ abstract public class World implements Drawable{
      * the event handlers, and the timer initialized to the current settings.
      */
     private synchronized World resetWorld(World bw){
-        if (this.worldExists){
+        if (this.worldExists && this.headless){
+            bw.worldExists = true;
+            bw.headless = true;
+            bw.headlessWidth = this.headlessWidth;
+            bw.headlessHeight = this.headlessHeight;
+            bw.startTime = this.startTime;
+            bw.tickCount = this.tickCount;
+            // nothing to draw: HeadlessRunner renders only on request
+            return bw;
+        }
+        else if (this.worldExists){
             bw.theCanvas = this.theCanvas;
             bw.worldExists = true;
             
@@ -712,7 +802,8 @@ abstract public class World implements Drawable{
             return bw;
         }
         else{
-            this.theCanvas.clear();
+            if (!this.headless)
+                this.theCanvas.clear();
             this.drawWorld("");
             return this;
         }
@@ -728,14 +819,16 @@ abstract public class World implements Drawable{
      * @return <code>true</code>
      */
     protected synchronized boolean drawWorld(String s){
-        if (this.worldExists){
-            this.theCanvas.clear();
-            this.theCanvas.drawImage(this.makeImage());
+        if (this.headless){
+            // no canvas; HeadlessRunner renders only on request
+            return true;
+        }
+        else if (this.worldExists){
+            this.theCanvas.drawScene(this.makeImage());
             return true;
         }
         else{
-            this.theCanvas.clear();
-            this.theCanvas.drawImage(this.lastImage(s));
+            this.theCanvas.drawScene(this.lastImage(s));
             return true;
         }
     }
@@ -749,6 +842,8 @@ abstract public class World implements Drawable{
      */
     public int getWidth ()
     {
+        if (this.headless)
+            return this.headlessWidth;
         return this.theCanvas.getWidth();
     }
     
@@ -761,6 +856,8 @@ abstract public class World implements Drawable{
      */
     public int getHeight ()
     {
+        if (this.headless)
+            return this.headlessHeight;
         return this.theCanvas.getHeight();
     }
     
@@ -773,6 +870,8 @@ abstract public class World implements Drawable{
      */
     public int getCurrentWidth ()
     {
+        if (this.headless)
+            return this.headlessWidth;
         return this.theCanvas.getCurrentWidth();
     }
     
@@ -785,6 +884,8 @@ abstract public class World implements Drawable{
      */
     public int getCurrentHeight ()
     {
+        if (this.headless)
+            return this.headlessHeight;
         return this.theCanvas.getCurrentHeight();
     }
     
@@ -99,15 +99,9 @@ abstract public class World implements Drawable {
 		
 		//this.imageList = new HashMap<String, PictureImage>();
 		
-		// pause a bit so that two canvases do not compete when being opened
-		// almost at the same time
-		long start = System.currentTimeMillis();
-		long tmp = System.currentTimeMillis();
-		// System.out.println("Going to sleep.");
-		
-		while(tmp - start < 1000){
-			tmp = System.currentTimeMillis();
-		}
+		// wait (without spinning) until the canvas has been realized, so that two
+		// canvases do not compete when being opened almost at the same time
+		Readiness.awaitPendingEvents();
 		
 		// add the key listener to the frame for our canvas
 		this.ka = new MyKeyAdapter(this);
@@ -126,15 +120,9 @@ abstract public class World implements Drawable {
 		// draw the initial world
 		this.drawWorld("");
 		
-		// pause again after the Canvas is shown to make sure 
+		// wait again until the Canvas is showing, to make sure 
 		// all listeners and the timer are installed for theCanvas
-		start = System.currentTimeMillis();
-		tmp = System.currentTimeMillis();
-		// System.out.println("Going to sleep again.");
-		
-		while(tmp - start < 1000){
-			tmp = System.currentTimeMillis();
-		}
+		Readiness.awaitShowing(this.theCanvas.panel);
 		
 		// and add the timer -- start it if speed is greater than 0
 		this.mytime = new MyTimer(this, speed);
@@ -20,6 +20,7 @@ import javalib.tunes.Note;
 import javalib.tunes.SoundConstants;
 import javalib.tunes.TuneBucket;
 import javalib.worldcanvas.WorldCanvas;
+import javalib.worldcanvas.Readiness;
 import javalib.worldimages.WorldImage;
 import javalib.worldimages.WorldEnd;
 import javalib.worldimages.Posn;
@@ -232,18 +233,15 @@ abstract public class World implements SoundConstants, Versions{
   }
   
   /** 
-   * Pause at the start when building GUIs and installing listeners
-   * and at the end so the last tunes are heard
+   * Pause at the end so the last tunes are heard
    */
   void sleepSome(int miliseconds){
-    // pause a bit so that two canvases do not compete when being opened
-    // almost at the same time
-    long start = System.currentTimeMillis();
-    long tmp = System.currentTimeMillis();
-    //System.out.println("Going to sleep.");
-
-    while(tmp - start < miliseconds){
-      tmp = System.currentTimeMillis();
+    // sleep rather than spin, so the CPU is free while the tunes play
+    try{
+      Thread.sleep(miliseconds);
+    }
+    catch(InterruptedException e){
+      Thread.currentThread().interrupt();
     }
   }
   
@@ -275,9 +273,9 @@ abstract public class World implements SoundConstants, Versions{
     this.initMusic();
     this.pressedKeys = new ArrayList<String>();
     
-    // pause a bit so that two canvases do not compete when being opened
-    // almost at the same time
-    this.sleepSome(100); // miliseconds
+    // wait (without spinning) until the canvas has been realized, so that two
+    // canvases do not compete when being opened almost at the same time
+    Readiness.awaitPendingEvents();
     
     // add the key listener to the frame for our canvas
     this.ka = new MyKeyAdapter(this);
@@ -292,9 +290,9 @@ abstract public class World implements SoundConstants, Versions{
     // finally, show the canvas and draw the initial world
     this.theCanvas.show();
    
-    // pause again after the Canvas is shown to make sure 
+    // wait again until the Canvas is showing, to make sure 
     // all listeners and the timer are installed for theCanvas
-    this.sleepSome(100); //miliseconds
+    Readiness.awaitShowing(this.theCanvas.panel);
 
     // add the timer
     this.mytime = new MyTimer(this, speed);
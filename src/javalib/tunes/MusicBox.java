@@ -183,14 +183,12 @@ public class MusicBox implements SoundConstants{
    * and at the end so the last tunes are heard
    */
   public void sleepSome(int miliseconds){
-    // pause a bit so that two canvases do not compete when being opened
-    // almost at the same time
-    long start = System.currentTimeMillis();
-    long tmp = System.currentTimeMillis();
-    //System.out.println("Going to sleep.");
-
-    while(tmp - start < miliseconds){
-      tmp = System.currentTimeMillis();
+    // sleep rather than spin, so the CPU is free while the tunes play
+    try{
+      Thread.sleep(miliseconds);
+    }
+    catch(InterruptedException e){
+      Thread.currentThread().interrupt();
     }
   }
   
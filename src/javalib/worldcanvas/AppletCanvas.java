@@ -92,9 +92,14 @@ public class AppletCanvas extends JPanel {
    * <code>repaint()</code> method must explicitly be called.
    * This allows a number of painting operations to be done
    * prior to screen repaint.</p>
+   *
+   * <p>The graphics context is clipped to the buffer, so images drawn
+   * into it can skip their parts that are off the canvas.</p>
    */
   public final Graphics2D getBufferGraphics() {
-    return buffer.createGraphics();
+    Graphics2D g = buffer.createGraphics();
+    g.setClip(0, 0, buffer.getWidth(), buffer.getHeight());
+    return g;
   }
 
   /**
@@ -208,12 +213,9 @@ public class AppletCanvas extends JPanel {
     ImageMaker imread = new ImageMaker(fileName);
     
     Graphics2D g = getBufferGraphics();
-    // set up color conversion if different color models are used
-    ColorConvertOp colorOp = 
-    new ColorConvertOp(imread.cmodel.getColorSpace(), 
-               buffer.getColorModel().getColorSpace(), null);
-    // draw the given image at the given location
-    g.drawImage(imread.image, colorOp, nw.getX(), nw.getY());   
+    // draw the given image at the given location, converting colors
+    // only if the color models differ
+    imread.drawOn(g, buffer.getColorModel(), nw.getX(), nw.getY());
       
     // repaint the panel
     repaint();        
@@ -231,12 +233,9 @@ public class AppletCanvas extends JPanel {
   public void drawImage(ImageMaker imread, int x, int y){
     
     Graphics2D g = getBufferGraphics();
-    // set up color conversion if different color models are used
-    ColorConvertOp colorOp = 
-    new ColorConvertOp(imread.cmodel.getColorSpace(), 
-               buffer.getColorModel().getColorSpace(), null);
-    // draw the given image at the given location
-    g.drawImage(imread.image, colorOp, x, y);   
+    // draw the given image at the given location, converting colors
+    // only if the color models differ
+    imread.drawOn(g, buffer.getColorModel(), x, y);
     
     // repaint the panel
     repaint();        
@@ -35,6 +35,22 @@ public class CanvasPanel extends JPanel {
 	protected int WIDTH;
 	protected int HEIGHT;
 	
+	/**
+	 * The scene last drawn by <code>drawScene</code>, or <code>null</code>
+	 * if the buffer has been painted some other way since.
+	 */
+	protected transient WorldImage previousScene = null;
+	
+	/** Does <code>drawScene</code> redraw only the parts that changed? */
+	protected boolean incrementalRepaint = false;
+	
+	/**
+	 * How far (in pixels) a changed region is widened on every side, to
+	 * cover anti-aliasing and outline strokes that spill past an image's
+	 * bounding box.
+	 */
+	protected static final int DIRTY_MARGIN = 2;
+	
 	/**
 	 * <p>Constructs a BufferedPanel containing a buffered image
 	 * with the given width and height, 
@@ -87,9 +103,14 @@ public class CanvasPanel extends JPanel {
 	 * <code>repaint()</code> method must explicitly be called.
 	 * This allows a number of painting operations to be done
 	 * prior to screen repaint.</p>
+	 *
+	 * <p>The graphics context is clipped to the buffer, so images drawn
+	 * into it can skip their parts that are off the canvas.</p>
 	 */
 	public final Graphics2D getBufferGraphics() {
-		return buffer.createGraphics();
+		Graphics2D g = buffer.createGraphics();
+		g.setClip(0, 0, buffer.getWidth(), buffer.getHeight());
+		return g;
 	}
 	
 	/**
@@ -177,11 +198,163 @@ public class CanvasPanel extends JPanel {
 	 * with its background color or <code>Paint</code>.</p>
 	 */
 	public final void clearPanel() {
+		previousScene = null;
 		Graphics2D g2 = getBufferGraphics();
 		g2.setPaint((new White()).thisColor());
 		g2.fillRect(0, 0, buffer.getWidth(), buffer.getHeight());
 	}
 	
+	/**
+	 * <p>Turn incremental repainting by <code>drawScene</code> on or off.</p>
+	 * 
+	 * @param incremental <code>true</code> to redraw only the changed regions
+	 * @since Oct. 18, 2026
+	 */
+	public synchronized void setIncrementalRepaint(boolean incremental) {
+		incrementalRepaint = incremental;
+		previousScene = null;
+	}
+	
+	/**
+	 * @return <code>true</code> if <code>drawScene</code> redraws only the
+	 *         changed regions
+	 * @since Oct. 18, 2026
+	 */
+	public synchronized boolean isIncrementalRepaint() {
+		return incrementalRepaint;
+	}
+	
+	/**
+	 * <p>Replace the whole contents of the buffer with the given scene, on
+	 * a white background.</p>
+	 * 
+	 * <p>Normally this is the same as <code>clearPanel()</code> followed by
+	 * <code>drawImage(scene)</code>.  With incremental repainting turned on,
+	 * the scene is compared, layer by layer, with the one drawn last time,
+	 * and only the regions covered by layers that were added, removed or
+	 * changed are cleared, redrawn, and repainted on the screen.  The
+	 * layers of a scene are the images of its top-level overlay (or the
+	 * whole scene, if it isn't an overlay); they are compared with
+	 * <code>equals</code>, so an image that is mutated in place
+	 * (<em>e.g.</em> a <code>RasterImage</code>) and drawn again won't be
+	 * noticed as a change.</p>
+	 * 
+	 * @param scene the new scene
+	 * @since Oct. 18, 2026
+	 */
+	public synchronized void drawScene(WorldImage scene) {
+		if (!incrementalRepaint || previousScene == null) {
+			clearPanel();
+			drawImage(scene);
+			previousScene = scene;
+			return;
+		}
+		
+		WorldImage[] before = layersOf(previousScene);
+		WorldImage[] after = layersOf(scene);
+		previousScene = scene;
+		
+		// skip the layers that are unchanged at the back and at the front,
+		// so adding or removing a sprite doesn't make the rest dirty
+		int start = 0;
+		while (start < before.length && start < after.length &&
+			   sameLayer(before[start], after[start]))
+			++start;
+		int endBefore = before.length;
+		int endAfter = after.length;
+		while (endBefore > start && endAfter > start &&
+			   sameLayer(before[endBefore - 1], after[endAfter - 1])) {
+			--endBefore;
+			--endAfter;
+		}
+		
+		ArrayList<Rectangle> dirty = new ArrayList<Rectangle>();
+		for (int i = start; i < Math.max(endBefore, endAfter); ++i) {
+			if (i < endBefore && i < endAfter && sameLayer(before[i], after[i]))
+				continue;
+			if (i < endBefore)
+				addDirty(dirty, before[i]);
+			if (i < endAfter)
+				addDirty(dirty, after[i]);
+		}
+		
+		// if most of the buffer changed, a single full redraw is cheaper
+		long area = 0;
+		for (Rectangle r : dirty)
+			area += (long) r.width * r.height;
+		if (2 * area > (long) buffer.getWidth() * buffer.getHeight()) {
+			dirty.clear();
+			dirty.add(new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight()));
+		}
+		
+		Insets in = getInnerPanel().getInsets();
+		for (Rectangle r : dirty) {
+			Graphics2D g = getBufferGraphics();
+			g.clip(r);
+			g.setPaint((new White()).thisColor());
+			g.fillRect(r.x, r.y, r.width, r.height);
+			for (WorldImage layer : after) {
+				if (dirtyBounds(layer).intersects(r))
+					layer.draw(g);
+			}
+			g.dispose();
+			painter.repaint(in.left + r.x, in.top + r.y, r.width, r.height);
+		}
+	}
+	
+	/**
+	 * @return the images of the top-level overlay in the given scene,
+	 *         from back to front, or just the scene if it isn't an overlay
+	 */
+	private static WorldImage[] layersOf(WorldImage scene) {
+		if (scene instanceof OverlayImage) {
+			OverlayImage overlay = (OverlayImage) scene;
+			WorldImage[] layers = new WorldImage[overlay.getImageCount()];
+			for (int i = 0; i < layers.length; ++i)
+				layers[i] = overlay.getImage(i);
+			return layers;
+		}
+		return new WorldImage[] { scene };
+	}
+	
+	/** Do the two layers certainly look the same, in the same place? */
+	private static boolean sameLayer(WorldImage a, WorldImage b) {
+		return a == b || a.equals(b);
+	}
+	
+	/** The bounding box of the given image, widened by the margin. */
+	private static Rectangle dirtyBounds(WorldImage image) {
+		return new Rectangle(image.getLeft() - DIRTY_MARGIN,
+							 image.getTop() - DIRTY_MARGIN,
+							 image.getWidth() + 2 * DIRTY_MARGIN,
+							 image.getHeight() + 2 * DIRTY_MARGIN);
+	}
+	
+	/**
+	 * Add the region covered by the given image to the list of dirty
+	 * rectangles, merging it with any rectangles it overlaps.
+	 */
+	private void addDirty(ArrayList<Rectangle> dirty, WorldImage image) {
+		Rectangle r = dirtyBounds(image).intersection(
+			new Rectangle(0, 0, buffer.getWidth(), buffer.getHeight()));
+		if (r.isEmpty())
+			return;
+		
+		boolean merged = true;
+		while (merged) {
+			merged = false;
+			for (Iterator<Rectangle> it = dirty.iterator(); it.hasNext(); ) {
+				Rectangle other = it.next();
+				if (other.intersects(r)) {
+					r = r.union(other);
+					it.remove();
+					merged = true;
+				}
+			}
+		}
+		dirty.add(r);
+	}
+	
 	/**
 	 * Draw the image from the given .png file at the specified 
 	 * location
@@ -190,16 +363,14 @@ public class CanvasPanel extends JPanel {
 	 * @param y the y coordinate for the NW corner
 	 */
 	public void drawImage(String fileName, int x, int y){
+		previousScene = null;
 		// read the given image file
 		ImageMaker imread = new ImageMaker(fileName);
 		
 		Graphics2D g = getBufferGraphics();
-		// set up color conversion if different color models are used
-		ColorConvertOp colorOp = 
-		new ColorConvertOp(imread.cmodel.getColorSpace(), 
-						   buffer.getColorModel().getColorSpace(), null);
-		// draw the given image at the given location
-		g.drawImage(imread.image, colorOp, x, y);   
+		// draw the given image at the given location, converting colors
+		// only if the color models differ
+		imread.drawOn(g, buffer.getColorModel(), x, y);
 	    
 		// repaint the panel
 		repaint();	  	  
@@ -214,14 +385,12 @@ public class CanvasPanel extends JPanel {
 	 * @param y the y coordinate for the NW corner
 	 */
 	public void drawImage(ImageMaker imread, int x, int y){
+		previousScene = null;
 		
 		Graphics2D g = getBufferGraphics();
-		// set up color conversion if different color models are used
-		ColorConvertOp colorOp = 
-		new ColorConvertOp(imread.cmodel.getColorSpace(), 
-						   buffer.getColorModel().getColorSpace(), null);
-		// draw the given image at the given location
-		g.drawImage(imread.image, colorOp, x, y);   
+		// draw the given image at the given location, converting colors
+		// only if the color models differ
+		imread.drawOn(g, buffer.getColorModel(), x, y);
 		
 		// repaint the panel
 		repaint();        
@@ -236,6 +405,7 @@ public class CanvasPanel extends JPanel {
 	 * @param y the y coordinate for the NW corner
 	 */
 	public void drawImagePixels(ImageMaker imread, int x, int y){
+		previousScene = null;
 		
 		Graphics2D g = getBufferGraphics();
 		
@@ -277,6 +447,7 @@ public class CanvasPanel extends JPanel {
 	 * @param image the image to draw
 	 */
 	public void drawImage(WorldImage image){
+		previousScene = null;
 		Graphics2D g = getBufferGraphics();
 		
 		image.draw(g);
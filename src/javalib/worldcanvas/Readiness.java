@@ -0,0 +1,107 @@
+package javalib.worldcanvas;
+
+import java.awt.Component;
+import java.awt.event.HierarchyEvent;
+import java.awt.event.HierarchyListener;
+import java.lang.reflect.InvocationTargetException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.swing.SwingUtilities;
+
+/**
+ * <p>Class <code>Readiness</code> encapsulates methods that wait for a canvas
+ * to be ready for drawing and events, without spinning the CPU.</p>
+ *
+ * <p>The worlds used to pause for a fixed second or two, twice, while the
+ * canvas opened and the listeners were installed.  These methods instead block
+ * (using no CPU) until the event-dispatch thread has actually done that work,
+ * which usually takes a few milliseconds.</p>
+ *
+ * <p>Class <code>Readiness</code> cannot be instantiated.</p>
+ *
+ * @version Oct. 18, 2026
+ */
+public class Readiness {
+
+    /** The longest we'll wait for a component to appear, in milliseconds. */
+    public static final long DEFAULT_TIMEOUT = 1000;
+
+    /** Private constructor to prevent instantiation. */
+    private Readiness() {}
+
+    /**
+     * <p>Block until every event that was queued on the event-dispatch thread before this
+     * call (frame realization, listener installation, repaints...) has been dispatched.</p>
+     *
+     * <p>Does nothing if called on the event-dispatch thread itself, since that
+     * thread can't wait for itself.</p>
+     */
+    public static void awaitPendingEvents() {
+        if (SwingUtilities.isEventDispatchThread())
+            return;
+        try {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                public void run() { }
+            });
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        catch (InvocationTargetException e) {
+            // an empty Runnable can't throw
+        }
+    }
+
+    /**
+     * <p>Block until the given component is showing on the screen and all events
+     * queued up to that point have been dispatched, or until the timeout expires.</p>
+     *
+     * <p>If called on the event-dispatch thread, doesn't wait at all, since the
+     * events that would make the component show up can't be delivered until
+     * that thread is free.</p>
+     *
+     * @param component     the component to wait for (<em>e.g.</em> the canvas panel)
+     * @param timeoutMillis the longest to wait, in milliseconds
+     * @return <code>true</code> if the component is showing
+     */
+    public static boolean awaitShowing(final Component component, long timeoutMillis) {
+        if (SwingUtilities.isEventDispatchThread())
+            return component.isShowing();
+
+        final CountDownLatch shown = new CountDownLatch(1);
+        HierarchyListener listener = new HierarchyListener() {
+            public void hierarchyChanged(HierarchyEvent e) {
+                if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 &&
+                    component.isShowing())
+                    shown.countDown();
+            }
+        };
+
+        component.addHierarchyListener(listener);
+        try {
+            // the component may have appeared before we started listening
+            if (!component.isShowing())
+                shown.await(timeoutMillis, TimeUnit.MILLISECONDS);
+            awaitPendingEvents();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        finally {
+            component.removeHierarchyListener(listener);
+        }
+        return component.isShowing();
+    }
+
+    /**
+     * <p>Block until the given component is showing, waiting at most
+     * <code>DEFAULT_TIMEOUT</code> milliseconds.</p>
+     *
+     * @param component the component to wait for
+     * @return <code>true</code> if the component is showing
+     */
+    public static boolean awaitShowing(Component component) {
+        return awaitShowing(component, DEFAULT_TIMEOUT);
+    }
+}
@@ -215,6 +215,42 @@ public class WorldCanvas {
         return true;
     }  
 
+    /**
+     * Replace the contents of the <code>{@link WorldCanvas Canvas}</code> with
+     * the given scene, on a white background.  With incremental repainting
+     * turned on, only the regions that changed since the last scene are
+     * redrawn.
+     * 
+     * @param scene the scene to be drawn
+     * @return <code>true</code>
+     * @since Oct. 18, 2026
+     */
+    public boolean drawScene(WorldImage scene){
+        this.panel.drawScene(scene);
+        return true;
+    }
+
+    /**
+     * Turn incremental repainting on or off for <code>drawScene</code>.
+     * It pays off on large canvases where only a few sprites change from one
+     * scene to the next.
+     * 
+     * @param incremental <code>true</code> to redraw only the changed regions
+     * @since Oct. 18, 2026
+     */
+    public void setIncrementalRepaint(boolean incremental){
+        this.panel.setIncrementalRepaint(incremental);
+    }
+
+    /**
+     * @return <code>true</code> if <code>drawScene</code> redraws only the
+     * changed regions
+     * @since Oct. 18, 2026
+     */
+    public boolean isIncrementalRepaint(){
+        return this.panel.isIncrementalRepaint();
+    }
+
     public void printCurrentFont(){
         ((CanvasPanel)panel).getFont();
     }
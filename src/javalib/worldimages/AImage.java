@@ -1,8 +1,16 @@
 package javalib.worldimages;
 import java.awt.geom.AffineTransform;
+import java.awt.geom.Area;
+import java.awt.geom.Rectangle2D;
 import javalib.colors.*;
+import java.awt.BasicStroke;
 import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.Shape;
 import java.awt.image.BufferedImage;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * The most important class in the <tt>worldimages</tt> package.
@@ -30,6 +38,19 @@ import java.awt.image.BufferedImage;
  */
 public abstract class AImage implements WorldImage
 {  
+    /**
+     * A frozen copy of this image, made the first time it's asked for (by <code>frozen</code>,
+     * or by anything that reads pixels) and kept for later requests, since images don't
+     * change once they're built.
+     */
+    private transient volatile RasterImage frozenCopy = null;
+    
+    /**
+     * A spatial index of this image's leaves, made the first time it's asked for and kept,
+     * like the frozen copy.
+     */
+    private transient volatile SceneIndex sceneIndex = null;
+    
     /**
      * Display the image in a new window by itself.
      * 
@@ -137,6 +158,19 @@ public abstract class AImage implements WorldImage
         return this.sameClass(other);
     }
     
+    /**
+     * The hashCode to match the equals method: two images of the same class
+     * are equal as far as AImage knows, so they get the same hash.
+     * 
+     * <p>Subclasses add the hashes of their own fields.  The composite images
+     * (overlays, transforms, crops, frozen images) compute theirs once, when
+     * they're constructed, from the already-computed hashes of their parts,
+     * and their equals methods give up early when the hashes differ.</p>
+     */
+    public int hashCode () {
+        return this.getClass().getName().hashCode();
+    }
+    
     /**
      * Do two WorldImages appear the same?
      * 
@@ -157,7 +191,193 @@ public abstract class AImage implements WorldImage
      * @return x rotated left by the specified number of bits (wrapping around to the low bits)
      */
     protected static int rotate (int x, int bits) {
-        return x << bits + x >>> (32-bits);
+        return (x << bits) | (x >>> (32-bits));
+    }
+    
+// Culling
+    
+    /** How many parts of images have been skipped in drawing because they couldn't show. */
+    private static final LongAdder culled = new LongAdder();
+    
+    /**
+     * How many parts of images (the parts of overlays, and the leaves of cropped scenes)
+     * have been skipped, since the count was last reset, because they were entirely
+     * outside the clip or the canvas they were being drawn on?
+     * 
+     * @return the number of parts not drawn
+     * @since Oct. 18, 2026
+     */
+    public static long getCulledCount ()
+    {
+        return culled.sum();
+    }
+    
+    /**
+     * Start counting culled parts from zero again.
+     * 
+     * @since Oct. 18, 2026
+     */
+    public static void resetCulledCount ()
+    {
+        culled.reset();
+    }
+    
+    /**
+     * Record that some parts were skipped.
+     */
+    static void countCulled (int parts)
+    {
+        culled.add (parts);
+    }
+    
+    /**
+     * The part of a Graphics2D that can actually be drawn on, in its current coordinates:
+     * the bounding box of its clip.  (The canvases clip their buffers' graphics to the
+     * buffers; a Graphics2D with no clip at all, <em>e.g.</em> a fresh one on a BufferedImage,
+     * claims to be unbounded, so there's no telling what's off the edge of it.)
+     * 
+     * @return a rectangle covering everything that can show, or null if that's unknown
+     */
+    static Rectangle visibleArea (Graphics2D g)
+    {
+        return g.getClipBounds();
+    }
+    
+    /**
+     * Might any of an image show in a visible area?  Allows a pixel of slack, since outlines
+     * are drawn a little outside the bounding boxes of their shapes.
+     * 
+     * @param visible   what <code>visibleArea</code> found, or null to assume it might
+     */
+    static boolean mayShow (WorldImage image, Rectangle visible)
+    {
+        return visible == null ||
+               (image.getLeft() - 1 <= visible.x + visible.width &&
+                image.getRight() + 1 >= visible.x &&
+                image.getTop() - 1 <= visible.y + visible.height &&
+                image.getBottom() + 1 >= visible.y);
+    }
+    
+// Hit testing
+    
+    public boolean contains (Posn p)
+    {
+        // Java2D fills the pixels whose top-left corners are inside a shape (once it has
+        // normalized the shape's coordinates), so test the corner rather than the center
+        return boxContains (this, p.getX(), p.getY()) &&
+               this.containsPoint (p.getX(), p.getY());
+    }
+    
+    public boolean intersects (WorldImage other)
+    {
+        if (! boxesMeet (this, other))
+            return false;
+        else if (other instanceof AImage)
+            return ((AImage)other).overlaps (this);
+        else
+            return this.intersectsShape (boxOf (other));
+    }
+    
+    /**
+     * The region this image covers, in its own coordinates.  By default, its bounding box;
+     * the primitive shapes override this with their actual shapes, and the composite images
+     * override <code>containsPoint</code>, <code>intersectsShape</code> and
+     * <code>overlaps</code> instead.
+     * 
+     * @return a Shape covering the same points as the image
+     */
+    Shape getOutline ()
+    {
+        return boxOf (this);
+    }
+    
+    /**
+     * Is a point inside this image?  Only called once the point is known to be (nearly)
+     * inside the bounding box.
+     */
+    boolean containsPoint (double x, double y)
+    {
+        return this.getOutline().contains (x, y);
+    }
+    
+    /**
+     * Does a shape, in this image's coordinates, overlap this image?
+     */
+    boolean intersectsShape (Shape shape)
+    {
+        return shapesIntersect (this.getOutline(), shape);
+    }
+    
+    /**
+     * Does another image overlap this one?  Composite images take themselves apart here,
+     * so the question eventually comes down to whether the other image intersects one of
+     * the shapes this one is made of.
+     * 
+     * @param other   an image whose bounding box is known to meet this one's
+     */
+    boolean overlaps (AImage other)
+    {
+        return other.intersectsShape (this.getOutline());
+    }
+    
+    /**
+     * The shape of a primitive image: the shape itself if it's filled, or the strip a
+     * one-pixel pen covers going around it if it's outlined.
+     */
+    static Shape outlineOf (Shape shape, Mode mode)
+    {
+        if (mode == Mode.OUTLINED)
+            return new BasicStroke (1).createStrokedShape (shape);
+        else
+            return shape;
+    }
+    
+    /**
+     * The bounding box of an image, as a Shape.
+     */
+    static Rectangle2D boxOf (WorldImage image)
+    {
+        return new Rectangle2D.Double (image.getLeft(), image.getTop(),
+                                       image.getWidth(), image.getHeight());
+    }
+    
+    /**
+     * Might a point be inside an image, judging by its bounding box?  The bounding boxes
+     * of transformed images are rounded, so this allows a pixel of slack.
+     */
+    static boolean boxContains (WorldImage image, double x, double y)
+    {
+        return x >= image.getLeft() - 1 && x <= image.getRight() + 1 &&
+               y >= image.getTop() - 1 && y <= image.getBottom() + 1;
+    }
+    
+    /**
+     * Might two images overlap, judging by their bounding boxes?  Allows a pixel of slack,
+     * as <code>boxContains</code> does.
+     */
+    static boolean boxesMeet (WorldImage a, WorldImage b)
+    {
+        return a.getLeft() <= b.getRight() + 1 && b.getLeft() <= a.getRight() + 1 &&
+               a.getTop() <= b.getBottom() + 1 && b.getTop() <= a.getBottom() + 1;
+    }
+    
+    /**
+     * Do two shapes overlap?  Cheap when either of them is a rectangle, as bounding boxes
+     * and crops are; otherwise they're intersected as Areas.
+     */
+    static boolean shapesIntersect (Shape a, Shape b)
+    {
+        Rectangle2D aBox = a.getBounds2D();
+        Rectangle2D bBox = b.getBounds2D();
+        if (! aBox.intersects (bBox))
+            return false;
+        else if (a instanceof Rectangle2D)
+            return b.intersects ((Rectangle2D)a);
+        else if (b instanceof Rectangle2D)
+            return a.intersects ((Rectangle2D)b);
+        Area overlap = new Area (a);
+        overlap.intersect (new Area (b));
+        return ! overlap.isEmpty();
     }
     
 
@@ -846,6 +1066,68 @@ public abstract class AImage implements WorldImage
         return FromURLImage.make (urlString);
     }
     
+    /**
+     * Produce a board of tiles cut out of one image (a "sprite sheet"), such as the board
+     * of a grid game.  The tiles of the atlas are numbered from 0, left to right along its
+     * top row, then along the next row, and so on.
+     * 
+     * @param atlas        the image the tiles are cut out of
+     * @param tileWidth    how wide each tile is
+     * @param tileHeight   how tall each tile is
+     * @param columns      how many squares wide the board is
+     * @param tiles        the tile number of each square (or <code>TileMapImage.EMPTY</code>),
+     *                     along the top row of the board first, then the next row, and so on
+     * @return the board, which can have its tiles changed with <code>withTile</code>
+     * @since Oct. 18, 2026
+     */
+    public static TileMapImage makeTileMap (WorldImage atlas, int tileWidth, int tileHeight,
+                                            int columns, int[] tiles)
+    {
+        return TileMapImage.make (atlas, tileWidth, tileHeight, columns, tiles);
+    }
+    
+    /**
+     * Start reading some image files in the background, several at once, so that
+     * <code>makeFromFile</code> finds them already loaded instead of reading them itself.
+     * 
+     * <p>Calling <code>makeFromFile</code> on a file that's still loading just waits for
+     * it to finish, so it's fine not to wait for the result at all; calling
+     * <code>get()</code> on the result waits for all of them.</p>
+     * 
+     * @param filenames   the names of the files, as they'd be given to <code>makeFromFile</code>
+     * @return a future that completes when all the files have been read, or completes
+     *         exceptionally if any of them couldn't be
+     * @since Oct. 18, 2026
+     */
+    public static CompletableFuture<Void> preload (String... filenames)
+    {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[filenames.length];
+        for (int ii = 0; ii < filenames.length; ++ii)
+        {
+            loads[ii] = FromFileImage.preload (filenames[ii]);
+        }
+        return CompletableFuture.allOf (loads);
+    }
+    
+    /**
+     * Start downloading some images in the background, several at once, so that
+     * <code>makeFromURL</code> finds them already loaded.
+     * 
+     * @param urlStrings   the URLs, written as strings
+     * @return a future that completes when all the images have been loaded, or completes
+     *         exceptionally if any of them couldn't be
+     * @since Oct. 18, 2026
+     */
+    public static CompletableFuture<Void> preloadURLs (String... urlStrings)
+    {
+        CompletableFuture<?>[] loads = new CompletableFuture<?>[urlStrings.length];
+        for (int ii = 0; ii < urlStrings.length; ++ii)
+        {
+            loads[ii] = FromURLImage.preload (urlStrings[ii]);
+        }
+        return CompletableFuture.allOf (loads);
+    }
+    
 // Miscellaneous operations on images.
     
     /**
@@ -1065,12 +1347,14 @@ public abstract class AImage implements WorldImage
         
     public WorldImage overlay (WorldImage... others)
     {
-        WorldImage result = this;
-        for (WorldImage other : others)
+        if (others.length == 0)
         {
-            result = OverlayImage.make (result, other);
+            return this;
         }
-        return result;
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this;
+        System.arraycopy (others, 0, all, 1, others.length);
+        return OverlayImage.make (all);
     }
     
     /**
@@ -1081,19 +1365,11 @@ public abstract class AImage implements WorldImage
      */
     public static WorldImage overlayImages (WorldImage... others)
     {
-        WorldImage result = null;
-        for (WorldImage other : others)
+        if (others.length == 0)
         {
-            if (result == null)
-            {
-                result = other;
-            }
-            else
-            {
-                result = OverlayImage.make (result, other);
-            }
+            return null;
         }
-        return result;
+        return OverlayImage.make (others);
     }
     
     public WorldImage overlayCentered (WorldImage... others)
@@ -1107,16 +1383,17 @@ public abstract class AImage implements WorldImage
             height = Math.max (height, other.getHeight());
         }
 
-        WorldImage result = this.normalized().moved
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this.normalized().moved
             ((width-this.getWidth())/2, (height-this.getHeight())/2);
 
-        for (WorldImage other : others)
+        for (int ii = 0; ii < others.length; ++ii)
         {
-            result = OverlayImage.make (result,
-                other.normalized().moved
-                    ((width-other.getWidth())/2, (height-other.getHeight())/2));
+            WorldImage other = others[ii];
+            all[ii + 1] = other.normalized().moved
+                    ((width-other.getWidth())/2, (height-other.getHeight())/2);
         }
-        return result;
+        return OverlayImage.make (all);
     }
         
     public WorldImage overlayXY (WorldImage front, int dx, int dy)
@@ -1139,13 +1416,22 @@ public abstract class AImage implements WorldImage
 
     public WorldImage above (WorldImage... others)
     {
-        WorldImage result = this;
-        for (WorldImage other : others)
+        if (others.length == 0)
         {
-            result = OverlayImage.make (result,
-                other.moved (0, result.getBottom() - other.getTop()));
+            return this;
         }
-        return result;
+        // Collect all the pieces and overlay them at once, keeping track of
+        // the bottom edge of the pieces so far as we go.
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this;
+        int bottom = this.getBottom();
+        for (int ii = 0; ii < others.length; ++ii)
+        {
+            WorldImage other = others[ii];
+            all[ii + 1] = other.moved (0, bottom - other.getTop());
+            bottom = Math.max (bottom, all[ii + 1].getBottom());
+        }
+        return OverlayImage.make (all);
     }
     
     public WorldImage aboveCentered (WorldImage... others)
@@ -1159,25 +1445,39 @@ public abstract class AImage implements WorldImage
             height = height + other.getHeight();
         }
 
-        WorldImage result = this.normalized().moved((width-this.getWidth())/2, 0);
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this.normalized().moved((width-this.getWidth())/2, 0);
+        int top = all[0].getTop();
+        int bottom = all[0].getBottom();
         
-        for (WorldImage other : others)
+        for (int ii = 0; ii < others.length; ++ii)
         {
-            result = OverlayImage.make (result,
-                other.normalized().moved((width-other.getWidth())/2, result.getHeight()));
+            WorldImage other = others[ii];
+            all[ii + 1] = other.normalized().moved((width-other.getWidth())/2, bottom - top);
+            top = Math.min (top, all[ii + 1].getTop());
+            bottom = Math.max (bottom, all[ii + 1].getBottom());
         }
-        return result;
+        return OverlayImage.make (all);
     }
     
     public WorldImage beside (WorldImage... others)
     {
-        WorldImage result = this;
-        for (WorldImage other : others)
+        if (others.length == 0)
         {
-            result = OverlayImage.make (result,
-                other.moved (result.getRight() - other.getLeft(), 0));
+            return this;
         }
-        return result;
+        // Collect all the pieces and overlay them at once, keeping track of
+        // the right edge of the pieces so far as we go.
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this;
+        int right = this.getRight();
+        for (int ii = 0; ii < others.length; ++ii)
+        {
+            WorldImage other = others[ii];
+            all[ii + 1] = other.moved (right - other.getLeft(), 0);
+            right = Math.max (right, all[ii + 1].getRight());
+        }
+        return OverlayImage.make (all);
     }
         
     public WorldImage besideCentered (WorldImage... others)
@@ -1190,13 +1490,18 @@ public abstract class AImage implements WorldImage
             height = Math.max (height, other.getHeight());
         }
         
-        WorldImage result = this.normalized().moved(0, (height-this.getHeight())/2);
-        for (WorldImage other : others)
+        WorldImage[] all = new WorldImage[others.length + 1];
+        all[0] = this.normalized().moved(0, (height-this.getHeight())/2);
+        int left = all[0].getLeft();
+        int right = all[0].getRight();
+        for (int ii = 0; ii < others.length; ++ii)
         {
-            result = OverlayImage.make (result,
-                other.normalized().moved(result.getWidth(), (height-other.getHeight())/2));
+            WorldImage other = others[ii];
+            all[ii + 1] = other.normalized().moved(right - left, (height-other.getHeight())/2);
+            left = Math.min (left, all[ii + 1].getLeft());
+            right = Math.max (right, all[ii + 1].getRight());
         }
-        return result;
+        return OverlayImage.make (all);
     }
     
 
@@ -1205,9 +1510,77 @@ public abstract class AImage implements WorldImage
         return Crop.make(this, left, right, top, bottom);
     }
     
+    /**
+     * Freeze this image the first time, and return the same frozen copy every time
+     * after that, so it's only ever rendered once.
+     */
     public RasterImage frozen ()
     {
-        return FreezeImage.make (this);
+        RasterImage result = this.frozenCopy;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = this.frozenCopy;
+                if (result == null)
+                {
+                    result = FreezeImage.make (this);
+                    this.frozenCopy = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    public WorldImage cached ()
+    {
+        return CachedImage.make (this);
+    }
+    
+    public WorldImage compile ()
+    {
+        return CompiledImage.make (this);
+    }
+    
+    /**
+     * Add the operations that draw this image to a display list being compiled.  By
+     * default, that's just one operation: draw this image.  Overlays, transforms and crops
+     * break themselves down further, and the primitive shapes add their shapes.
+     * 
+     * @param list        the display list
+     * @param transform   the transform from this image's coordinates to the compiled
+     *                    image's, or null if they're the same
+     */
+    void compileInto (CompiledImage.Recorder list, AffineTransform transform)
+    {
+        list.addImage (this, transform);
+    }
+    
+    public SceneIndex getSceneIndex ()
+    {
+        SceneIndex result = this.sceneIndex;
+        if (result == null)
+        {
+            synchronized (this)
+            {
+                result = this.sceneIndex;
+                if (result == null)
+                {
+                    result = new SceneIndex (this);
+                    this.sceneIndex = result;
+                }
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * Has the spatial index already been built?  Building one costs more than drawing
+     * the whole scene once, so it's only worth using for drawing if it's already there.
+     */
+    boolean hasSceneIndex ()
+    {
+        return this.sceneIndex != null;
     }
     
     public boolean save(String filename)
@@ -1242,21 +1615,128 @@ public abstract class AImage implements WorldImage
     return build (width, height, builder, null);
     }
 
+    /**
+     * Build a rectangular image pixel by pixel, with colors as packed ARGB ints.
+     *
+     * @param width   the width in pixels of the desired image
+     * @param height  the height in pixels of the desired image
+     * @param builder an IntImageBuilder specifying how to choose colors
+     * @param extra   an arbitrary Object to be passed to each call of the builder
+     * @since Oct. 18, 2026
+     */
+    public static WorldImage buildARGB (int width, int height, IntImageBuilder builder, Object extra)
+    {
+    return RasterImage.buildARGB (width, height, builder, extra);
+    }
+    
+    /**
+     * Build a rectangular image pixel by pixel, with colors as packed ARGB ints
+     * and no "extra" information.
+     *
+     * @param width   the width in pixels of the desired image
+     * @param height  the height in pixels of the desired image
+     * @param builder an IntImageBuilder specifying how to choose colors
+     * @since Oct. 18, 2026
+     */
+    public static WorldImage buildARGB (int width, int height, IntImageBuilder builder)
+    {
+    return buildARGB (width, height, builder, null);
+    }
+
+    /**
+     * Build a rectangular image pixel by pixel, using all available processors.
+     *
+     * <p>The result is exactly the same as from <code>build</code>, but the builder
+     * must be stateless, since it's called for many pixels at once, in no particular order.</p>
+     *
+     * @param width   the width in pixels of the desired image
+     * @param height  the height in pixels of the desired image
+     * @param builder an ImageBuilder specifying how to choose colors
+     * @param extra   an arbitrary Object to be passed to each call of the builder
+     * @since Oct. 18, 2026
+     */
+    public static WorldImage buildParallel (int width, int height, ImageBuilder builder, Object extra)
+    {
+    return RasterImage.buildParallel (width, height, builder, extra);
+    }
+    
+    /**
+     * Build a rectangular image pixel by pixel, with colors as packed ARGB ints,
+     * using all available processors.
+     *
+     * <p>The result is exactly the same as from <code>buildARGB</code>, but the builder
+     * must be stateless, since it's called for many pixels at once, in no particular order.</p>
+     *
+     * @param width   the width in pixels of the desired image
+     * @param height  the height in pixels of the desired image
+     * @param builder an IntImageBuilder specifying how to choose colors
+     * @param extra   an arbitrary Object to be passed to each call of the builder
+     * @since Oct. 18, 2026
+     */
+    public static WorldImage buildARGBParallel (int width, int height, IntImageBuilder builder, Object extra)
+    {
+    return RasterImage.buildARGBParallel (width, height, builder, extra);
+    }
+
     public WorldImage map (ImageMap map, Object extra)
     {
         return this.frozen().map (map, extra);
     }
 
+    public WorldImage mapWithNeighbors (ImageStencil stencil, Object extra)
+    {
+        return this.frozen().mapWithNeighbors (stencil, extra);
+    }
+
+    public WorldImage convolved (double[] horizontal, double[] vertical)
+    {
+        return this.frozen().convolved (horizontal, vertical);
+    }
+
+    public WorldImage blurred (int radius)
+    {
+        if (radius < 0)
+            throw new IllegalArgumentException ("can't blur by a negative radius, " + radius);
+        double[] kernel = new double[2 * radius + 1];
+        java.util.Arrays.fill (kernel, 1.0 / kernel.length);
+        return this.convolved (kernel, kernel);
+    }
+
+    public WorldImage mapParallel (ImageMap map, Object extra)
+    {
+        return this.frozen().mapParallel (map, extra);
+    }
+
+    public WorldImage mapARGBParallel (IntImageMap map, Object extra)
+    {
+        return this.frozen().mapARGBParallel (map, extra);
+    }
+
     public WorldImage map (ImageMap map)
     {
         return this.map (map, null);
     }
+
+    public WorldImage mapARGB (IntImageMap map, Object extra)
+    {
+        return this.frozen().mapARGB (map, extra);
+    }
+
+    public WorldImage mapARGB (IntImageMap map)
+    {
+        return this.mapARGB (map, null);
+    }
     
     public Color getPixelColor (int x, int y)
     {
         return this.frozen().getPixelColor (x, y);
     }
 
+    public int[] getPixels (int x, int y, int width, int height, int[] pixels)
+    {
+        return this.frozen().getPixels (x, y, width, height, pixels);
+    }
+
     /**
      * Record whether or not we're in an applet.
      * 
@@ -0,0 +1,204 @@
+package javalib.worldimages;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An image whose rendering is kept in a table shared by all CachedImages, keyed by the
+ * image being cached, so that a background built afresh every tick (but the same every
+ * time) is only actually rasterized once.
+ *
+ * <p>Unlike a <code>{@link FreezeImage FreezeImage}</code>, which remembers its own
+ * rendering, a CachedImage looks its rendering up by the structure of its base: any
+ * CachedImage whose base <code>equals</code> this one's uses the same rendering.  Since
+ * images compute their hash codes when they're built, finding the rendering costs
+ * about one comparison of the two trees.</p>
+ *
+ * <p>Translations are left out of the key: caching an image that has been moved caches
+ * the unmoved image and moves the result, so a sprite that moves every tick is still
+ * rasterized once and then drawn with one blit wherever it goes.</p>
+ *
+ * @version Oct. 18, 2026
+ */
+public class CachedImage extends AImage
+{
+    /** The most bytes of renderings to keep in the table. */
+    private static final long MAX_BYTES = 64L * 1024 * 1024;
+
+    /** the renderings, from least to most recently used */
+    private static final LinkedHashMap<WorldImage,BufferedImage> renderings =
+        new LinkedHashMap<WorldImage,BufferedImage> (16, 0.75f, true);
+    private static long bytes = 0;
+
+    private WorldImage base;
+    private int hash;
+    private transient BufferedImage rendering = null;
+
+    /**
+     * Constructor for objects of class CachedImage
+     *
+     * @param base    the image to cache
+     */
+    private CachedImage (WorldImage base)
+    {
+        this.base = base;
+        this.hash = super.hashCode() + rotate(base.hashCode(), 8);
+    }
+
+    /**
+     * Pseudo-constructor for objects of class CachedImage.
+     *
+     * <p>If the base is already cached, there's no point caching it again.  If it's a
+     * translation (by whole pixels) of some other image, cache that image and translate
+     * the result, so the key doesn't depend on where the image is.</p>
+     *
+     * @param base    the image to cache
+     */
+    static WorldImage make (WorldImage base)
+    {
+        if (base instanceof CachedImage)
+            return base;
+        if (base instanceof LinearImage)
+        {
+            LinearImage moved = (LinearImage)base;
+            AffineTransform transform = moved.getTransform();
+            if (transform.getType() == AffineTransform.TYPE_TRANSLATION &&
+                transform.getTranslateX() == Math.rint(transform.getTranslateX()) &&
+                transform.getTranslateY() == Math.rint(transform.getTranslateY()))
+            {
+                return LinearImage.make (transform, make (moved.getBase()));
+            }
+        }
+        return new CachedImage (base);
+    }
+
+    /**
+     * Find the rendering of the base, in the shared table or by rendering it.
+     */
+    private BufferedImage getRendering ()
+    {
+        if (this.rendering != null)
+            return this.rendering;
+
+        BufferedImage found;
+        synchronized (renderings)
+        {
+            found = renderings.get (this.base);
+        }
+        if (found == null)
+        {
+            found = new BufferedImage (Math.max (1, this.base.getWidth()),
+                                       Math.max (1, this.base.getHeight()),
+                                       BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = found.createGraphics();
+            g.translate (-this.base.getLeft(), -this.base.getTop());
+            this.base.draw (g);
+            g.dispose();
+            synchronized (renderings)
+            {
+                BufferedImage old = renderings.put (this.base, found);
+                if (old != null)
+                    bytes -= sizeOf (old);
+                bytes += sizeOf (found);
+                Iterator<Map.Entry<WorldImage,BufferedImage>> it = renderings.entrySet().iterator();
+                while (bytes > MAX_BYTES && renderings.size() > 1)
+                {
+                    bytes -= sizeOf (it.next().getValue());
+                    it.remove();
+                }
+            }
+        }
+        this.rendering = found;
+        return found;
+    }
+
+    private static long sizeOf (BufferedImage image)
+    {
+        return 4L * image.getWidth() * image.getHeight();
+    }
+
+    public void draw (Graphics2D g)
+    {
+        g.drawImage (this.getRendering(), this.base.getLeft(), this.base.getTop(), null);
+    }
+
+    /**
+     * Getter for the image being cached.
+     *
+     * @return the base image
+     */
+    public WorldImage getBase ()
+    {
+        return this.base;
+    }
+
+    /**
+     * Caching it again wouldn't do anything.
+     */
+    public WorldImage cached ()
+    {
+        return this;
+    }
+
+    boolean containsPoint (double x, double y)
+    {
+        return ((AImage)this.base).containsPoint (x, y);
+    }
+
+    boolean intersectsShape (java.awt.Shape shape)
+    {
+        return ((AImage)this.base).intersectsShape (shape);
+    }
+
+    boolean overlaps (AImage other)
+    {
+        return ((AImage)this.base).overlaps (other);
+    }
+
+    public boolean equals (Object other)
+    {
+        if (this == other)
+            return true;
+        return super.equals (other) &&
+               this.hash == ((CachedImage)other).hash &&
+               this.base.equals (((CachedImage)other).base);
+    }
+
+    public int hashCode ()
+    {
+        return this.hash;
+    }
+
+    public int getTop ()
+    {
+        return this.base.getTop();
+    }
+
+    public int getLeft ()
+    {
+        return this.base.getLeft();
+    }
+
+    public int getBottom ()
+    {
+        return this.base.getBottom();
+    }
+
+    public int getRight ()
+    {
+        return this.base.getRight();
+    }
+
+    public String toIndentedString (String indent)
+    {
+        String newIndent = indent + "  ";
+        return "new CachedImage(this.base = " +
+        "\n" + newIndent + this.base.toIndentedString (newIndent) +
+        ",\n" + newIndent + this.cornerString() +
+        ")";
+    }
+}
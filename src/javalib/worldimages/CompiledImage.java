@@ -0,0 +1,644 @@
+package javalib.worldimages;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.Paint;
+import java.awt.Polygon;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.util.ArrayList;
+
+/**
+ * An image compiled into a display list: a flat list of drawing operations (fill this
+ * shape, outline that one, draw this image, clip to that rectangle), each with the
+ * transform and color it needs already worked out.  Drawing it is one loop over the
+ * list, with no walking of the tree, and the color and transform are only changed when
+ * they actually differ from the previous operation's.
+ *
+ * <p>Transforms are multiplied out when the image is compiled.  Moving something by a
+ * whole number of pixels (as <code>moved</code> and <code>place</code> do) is built
+ * right into the coordinates of its shapes, so a scene of sprites that have only been
+ * moved around doesn't change the transform at all while it's drawn.</p>
+ *
+ * <p>Consecutive shapes of the same color, all filled or all outlined, are batched
+ * into one path when they're compiled, so a particle system or a board of tiles is
+ * filled (or outlined) with a few calls to Java2D instead of one for each shape.  Only
+ * opaque colors are batched, since where translucent shapes overlap they have to be
+ * blended twice.  A batch is drawn one shape at a time after all if antialiasing is on,
+ * since the edges would be blended differently, or if it has rectangles in it and isn't
+ * being drawn at a whole-pixel position, since Java2D draws rectangles on their own a
+ * little differently from rectangles in a path.</p>
+ *
+ * <p>Operations whose bounding boxes are entirely outside the clip are skipped, as
+ * they would be in drawing the original image.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public class CompiledImage extends AImage
+{
+    private WorldImage source;
+    private Op[] ops;
+    private int hash;
+
+    /** The identity transform, for getting and setting clips in device coordinates. */
+    private static final AffineTransform DEVICE = new AffineTransform ();
+
+    /**
+     * The most shapes to batch into one path.  Bigger batches mean fewer calls, but a batch
+     * is only skipped if all of it is outside the clip.
+     */
+    private static final int MAX_BATCH = 256;
+
+    /** The most vertices a polygon can have and still be checked for crossing itself. */
+    private static final int MAX_BATCHED_VERTICES = 32;
+
+    /** the kinds of operations */
+    static final int FILL = 0, DRAW = 1, IMAGE = 2, PUSH_CLIP = 3, POP_CLIP = 4;
+
+    /**
+     * One drawing operation.
+     */
+    private static final class Op
+    {
+        int kind;
+        Shape shape; // for FILL and DRAW, and the rectangle to clip to for PUSH_CLIP
+        Color color; // for FILL and DRAW
+        WorldImage image; // for IMAGE
+        int dx, dy; // how far to move the image first, for IMAGE
+        AffineTransform transform; // null if it's drawn in the compiled image's own coordinates
+        int left, top, right, bottom; // the bounding box of what it draws, for culling
+        int match; // for PUSH_CLIP and POP_CLIP, the index of the other one of the pair
+        boolean batchable; // for FILL and DRAW, whether more shapes can be added to its shape
+        int count; // how many shapes have been batched into its shape
+        Shape[] parts; // if there are more than one, the shapes batched into it
+        boolean hasRects; // whether any of them are rectangles
+    }
+
+    /**
+     * Constructor for objects of class CompiledImage
+     *
+     * @param source   the image to compile
+     */
+    private CompiledImage (WorldImage source)
+    {
+        this.source = source;
+        Recorder recorder = new Recorder ();
+        ((AImage)source).compileInto (recorder, null);
+        this.ops = recorder.ops.toArray (new Op[recorder.ops.size()]);
+        this.hash = super.hashCode() + rotate(source.hashCode(), 8);
+    }
+
+    /**
+     * Pseudo-constructor for objects of class CompiledImage
+     *
+     * @param source   the image to compile
+     */
+    static CompiledImage make (WorldImage source)
+    {
+        if (source instanceof CompiledImage)
+            return (CompiledImage)source;
+        else
+            return new CompiledImage (source);
+    }
+
+    /**
+     * What images call, in <code>compileInto</code>, to add their operations to a display list.
+     */
+    static final class Recorder
+    {
+        private final ArrayList<Op> ops = new ArrayList<Op> ();
+        private final ArrayList<Integer> openClips = new ArrayList<Integer> ();
+        private AffineTransform lastTransform = null;
+
+        /**
+         * Add an operation to fill or outline a shape.
+         *
+         * @param shape       the shape, in the image's own coordinates
+         * @param color       the color to draw it in
+         * @param mode        whether to fill it or outline it
+         * @param transform   the transform from the image's coordinates to the compiled
+         *                    image's, or null if they're the same
+         */
+        void addShape (Shape shape, Color color, Mode mode, AffineTransform transform)
+        {
+            Op op = new Op ();
+            op.kind = (mode == Mode.FILLED) ? FILL : DRAW;
+            op.color = color;
+            if (isWholeTranslation (transform))
+            {
+                op.shape = translated (shape, dx (transform), dy (transform));
+            }
+            else
+            {
+                op.shape = shape;
+                op.transform = this.share (transform);
+            }
+            Rectangle2D bounds = shape.getBounds2D();
+            this.setBox (op, bounds.getMinX(), bounds.getMinY(),
+                         bounds.getMaxX(), bounds.getMaxY(), transform);
+
+            Shape batchable = forBatching (op.shape, op.kind);
+            if (batchable != null && color.getAlpha() == 255)
+            {
+                op.shape = batchable;
+                op.batchable = true;
+                op.count = 1;
+                op.hasRects = batchable instanceof Rectangle2D;
+                Op last = this.ops.isEmpty() ? null : this.ops.get (this.ops.size() - 1);
+                if (last != null && last.batchable && last.kind == op.kind &&
+                    last.transform == op.transform && last.color.equals (op.color) &&
+                    last.count < MAX_BATCH)
+                {
+                    this.addToBatch (last, op);
+                    return;
+                }
+            }
+            this.ops.add (op);
+        }
+
+        /**
+         * Add a shape operation's shape to the batch of the one before it.
+         */
+        private void addToBatch (Op batch, Op op)
+        {
+            if (batch.count == 1)
+            {
+                batch.parts = new Shape[] { batch.shape, null, null, null };
+                Path2D path = new Path2D.Double (Path2D.WIND_NON_ZERO);
+                path.append (batch.shape, false);
+                batch.shape = path;
+            }
+            else if (batch.count == batch.parts.length)
+            {
+                batch.parts = java.util.Arrays.copyOf (batch.parts, 2 * batch.count);
+            }
+            ((Path2D)batch.shape).append (op.shape, false);
+            batch.parts[batch.count] = op.shape;
+            ++batch.count;
+            batch.hasRects |= op.hasRects;
+            batch.left = Math.min (batch.left, op.left);
+            batch.top = Math.min (batch.top, op.top);
+            batch.right = Math.max (batch.right, op.right);
+            batch.bottom = Math.max (batch.bottom, op.bottom);
+        }
+
+        /**
+         * Add an operation to draw an image that isn't broken down any further.
+         *
+         * @param image       the image
+         * @param transform   the transform from the image's coordinates to the compiled
+         *                    image's, or null if they're the same
+         */
+        void addImage (WorldImage image, AffineTransform transform)
+        {
+            Op op = new Op ();
+            op.kind = IMAGE;
+            op.image = image;
+            if (isWholeTranslation (transform))
+            {
+                op.dx = dx (transform);
+                op.dy = dy (transform);
+            }
+            else
+            {
+                op.transform = this.share (transform);
+            }
+            this.setBox (op, image.getLeft(), image.getTop(),
+                         image.getRight(), image.getBottom(), transform);
+            this.ops.add (op);
+        }
+
+        /**
+         * Start clipping to a rectangle, until the matching <code>popClip</code>.
+         *
+         * @param left, top, right, bottom   the rectangle, in the image's own coordinates
+         * @param transform   the transform from the image's coordinates to the compiled
+         *                    image's, or null if they're the same
+         */
+        void pushClip (int left, int top, int right, int bottom, AffineTransform transform)
+        {
+            Op op = new Op ();
+            op.kind = PUSH_CLIP;
+            Rectangle window = new Rectangle (left, top, right - left, bottom - top);
+            if (isWholeTranslation (transform))
+            {
+                window.translate (dx (transform), dy (transform));
+                op.shape = window;
+            }
+            else
+            {
+                op.shape = window;
+                op.transform = this.share (transform);
+            }
+            this.setBox (op, left, top, right, bottom, transform);
+            this.openClips.add (this.ops.size());
+            this.ops.add (op);
+        }
+
+        /**
+         * Stop clipping to the rectangle of the latest <code>pushClip</code>.
+         */
+        void popClip ()
+        {
+            int push = this.openClips.remove (this.openClips.size() - 1);
+            Op op = new Op ();
+            op.kind = POP_CLIP;
+            op.match = push;
+            this.ops.get (push).match = this.ops.size();
+            this.ops.add (op);
+        }
+
+        /**
+         * Use the same AffineTransform object for consecutive operations with equal
+         * transforms, so drawing can tell they're the same by comparing references.
+         */
+        private AffineTransform share (AffineTransform transform)
+        {
+            if (transform != null && transform.equals (this.lastTransform))
+                return this.lastTransform;
+            this.lastTransform = transform;
+            return transform;
+        }
+
+        /**
+         * Work out the bounding box of an operation in the compiled image's coordinates,
+         * widened by a pixel since outlines are drawn a little outside their shapes.
+         */
+        private void setBox (Op op, double left, double top, double right, double bottom,
+                             AffineTransform transform)
+        {
+            if (transform != null)
+            {
+                double[] corners = { left, top, right, top, left, bottom, right, bottom };
+                transform.transform (corners, 0, corners, 0, 4);
+                left = Math.min (Math.min (corners[0], corners[2]), Math.min (corners[4], corners[6]));
+                right = Math.max (Math.max (corners[0], corners[2]), Math.max (corners[4], corners[6]));
+                top = Math.min (Math.min (corners[1], corners[3]), Math.min (corners[5], corners[7]));
+                bottom = Math.max (Math.max (corners[1], corners[3]), Math.max (corners[5], corners[7]));
+            }
+            op.left = (int)Math.floor (left) - 1;
+            op.top = (int)Math.floor (top) - 1;
+            op.right = (int)Math.ceil (right) + 1;
+            op.bottom = (int)Math.ceil (bottom) + 1;
+        }
+    }
+
+    /**
+     * Is a transform nothing but a move by a whole number of pixels (or nothing at all)?
+     */
+    private static boolean isWholeTranslation (AffineTransform transform)
+    {
+        return transform == null ||
+               ((transform.getType() & ~AffineTransform.TYPE_TRANSLATION) == 0 &&
+                transform.getTranslateX() == Math.rint (transform.getTranslateX()) &&
+                transform.getTranslateY() == Math.rint (transform.getTranslateY()));
+    }
+
+    /**
+     * Get a shape ready to be batched with others, if it can be.
+     *
+     * <p>Outlines can always be batched: outlining a path outlines each of its parts.
+     * Filling a path fills the union of its parts only if they all go around the same
+     * way, as rectangles and ellipses do (clockwise on the screen).  A polygon that goes
+     * the other way can be turned around, but one that crosses itself can't be batched,
+     * since Java2D fills it by the even-odd rule.</p>
+     *
+     * @return the shape, turned around if need be, or null if it can't be batched
+     */
+    private static Shape forBatching (Shape shape, int kind)
+    {
+        if (shape instanceof Rectangle2D || shape instanceof Ellipse2D)
+            return shape;
+        else if (! (shape instanceof Polygon))
+            return null;
+        else if (kind == DRAW)
+            return shape;
+
+        Polygon poly = (Polygon)shape;
+        int n = poly.npoints;
+        if (n < 3 || n > MAX_BATCHED_VERTICES || crossesItself (poly))
+            return null;
+        long twiceArea = 0;
+        for (int ii = 0; ii < n; ++ii)
+        {
+            int jj = (ii + 1) % n;
+            twiceArea += (long)poly.xpoints[ii] * poly.ypoints[jj]
+                       - (long)poly.xpoints[jj] * poly.ypoints[ii];
+        }
+        if (twiceArea >= 0)
+            return poly;
+        int[] xs = new int[n], ys = new int[n];
+        for (int ii = 0; ii < n; ++ii)
+        {
+            xs[ii] = poly.xpoints[n - 1 - ii];
+            ys[ii] = poly.ypoints[n - 1 - ii];
+        }
+        return new Polygon (xs, ys, n);
+    }
+
+    /**
+     * Do any two edges of a polygon that aren't next to each other touch?
+     */
+    private static boolean crossesItself (Polygon poly)
+    {
+        int n = poly.npoints;
+        for (int ii = 0; ii < n; ++ii)
+        {
+            for (int jj = ii + 2; jj < n; ++jj)
+            {
+                if (ii == 0 && jj == n - 1)
+                    continue; // they share the first vertex
+                if (java.awt.geom.Line2D.linesIntersect (
+                        poly.xpoints[ii], poly.ypoints[ii],
+                        poly.xpoints[(ii + 1) % n], poly.ypoints[(ii + 1) % n],
+                        poly.xpoints[jj], poly.ypoints[jj],
+                        poly.xpoints[(jj + 1) % n], poly.ypoints[(jj + 1) % n]))
+                    return true;
+            }
+        }
+        return false;
+    }
+
+    /** How far a whole-pixel translation moves things horizontally. */
+    private static int dx (AffineTransform transform)
+    {
+        return (transform == null) ? 0 : (int)transform.getTranslateX();
+    }
+
+    /** How far a whole-pixel translation moves things vertically. */
+    private static int dy (AffineTransform transform)
+    {
+        return (transform == null) ? 0 : (int)transform.getTranslateY();
+    }
+
+    /**
+     * A copy of a shape moved by a whole number of pixels, keeping it the same kind of
+     * shape where that's easy.
+     */
+    private static Shape translated (Shape shape, int dx, int dy)
+    {
+        if (dx == 0 && dy == 0)
+            return shape;
+        else if (shape instanceof Rectangle2D)
+        {
+            Rectangle2D rect = (Rectangle2D)shape;
+            return new Rectangle2D.Double (rect.getX() + dx, rect.getY() + dy,
+                                           rect.getWidth(), rect.getHeight());
+        }
+        else if (shape instanceof Ellipse2D)
+        {
+            Ellipse2D ellipse = (Ellipse2D)shape;
+            return new Ellipse2D.Double (ellipse.getX() + dx, ellipse.getY() + dy,
+                                         ellipse.getWidth(), ellipse.getHeight());
+        }
+        else if (shape instanceof Polygon)
+        {
+            Polygon poly = (Polygon)shape;
+            Polygon result = new Polygon (poly.xpoints, poly.ypoints, poly.npoints);
+            result.translate (dx, dy);
+            return result;
+        }
+        else
+            return AffineTransform.getTranslateInstance (dx, dy).createTransformedShape (shape);
+    }
+
+    /**
+     * Play back the display list.
+     */
+    public void draw (Graphics2D g)
+    {
+        AffineTransform baseTransform = g.getTransform();
+        Paint oldPaint = g.getPaint();
+        g.setTransform (DEVICE);
+        Shape oldClip = g.getClip();
+        g.setTransform (baseTransform);
+
+        Rectangle[] visible = new Rectangle[4]; // the visible area inside each open clip
+        Shape[] savedClips = new Shape[4];
+        int depth = 0;
+        visible[0] = visibleArea (g);
+
+        AffineTransform current = null;
+        Color color = null;
+        int skipped = 0;
+        boolean antialiased = RenderingHints.VALUE_ANTIALIAS_ON.equals (
+            g.getRenderingHint (RenderingHints.KEY_ANTIALIASING));
+        boolean wholePixels = false; // whether the current transform is a whole-pixel translation
+        try
+        {
+            for (int ii = 0; ii < this.ops.length; ++ii)
+            {
+                Op op = this.ops[ii];
+                if (op.kind != POP_CLIP && !overlaps (op, visible[depth]))
+                {
+                    ++skipped;
+                    if (op.kind == PUSH_CLIP)
+                        ii = op.match; // none of what's clipped to it can show
+                    continue;
+                }
+
+                if (op.kind == POP_CLIP)
+                {
+                    // Clips are saved in device coordinates, since under a rotation they
+                    // can't be got and set back exactly in any others.
+                    --depth;
+                    g.setTransform (DEVICE);
+                    g.setClip (savedClips[depth]);
+                    savedClips[depth] = null;
+                    current = DEVICE;
+                    continue;
+                }
+
+                if (current != op.transform)
+                {
+                    current = setTransform (g, baseTransform, op.transform);
+                    wholePixels = isWholeTranslation (g.getTransform());
+                }
+                boolean separately = op.parts != null &&
+                                     (antialiased || (op.hasRects && ! wholePixels));
+
+                switch (op.kind)
+                {
+                    case FILL:
+                        if (color != op.color)
+                            g.setPaint (color = op.color);
+                        if (separately)
+                        {
+                            for (int jj = 0; jj < op.count; ++jj)
+                                g.fill (op.parts[jj]);
+                        }
+                        else
+                            g.fill (op.shape);
+                        break;
+                    case DRAW:
+                        if (color != op.color)
+                            g.setPaint (color = op.color);
+                        if (separately)
+                        {
+                            for (int jj = 0; jj < op.count; ++jj)
+                                g.draw (op.parts[jj]);
+                        }
+                        else
+                            g.draw (op.shape);
+                        break;
+                    case IMAGE:
+                        if (op.dx != 0 || op.dy != 0)
+                        {
+                            g.translate (op.dx, op.dy);
+                            op.image.draw (g);
+                            g.translate (-op.dx, -op.dy);
+                        }
+                        else
+                            op.image.draw (g);
+                        color = null; // it may have set its own paint
+                        break;
+                    case PUSH_CLIP:
+                        if (depth + 1 == savedClips.length)
+                        {
+                            savedClips = java.util.Arrays.copyOf (savedClips, 2 * savedClips.length);
+                            visible = java.util.Arrays.copyOf (visible, 2 * visible.length);
+                        }
+                        g.setTransform (DEVICE);
+                        savedClips[depth] = g.getClip();
+                        setTransform (g, baseTransform, op.transform);
+                        ++depth;
+                        visible[depth] = intersection (visible[depth - 1], op);
+                        g.clip (op.shape);
+                        break;
+                }
+            }
+        }
+        finally
+        {
+            if (skipped > 0)
+                countCulled (skipped);
+            g.setTransform (DEVICE);
+            g.setClip (oldClip);
+            g.setTransform (baseTransform);
+            g.setPaint (oldPaint);
+        }
+    }
+
+    /**
+     * Set a Graphics2D's transform to the base transform followed by an operation's.
+     */
+    private static AffineTransform setTransform (Graphics2D g, AffineTransform baseTransform,
+                                                 AffineTransform transform)
+    {
+        g.setTransform (baseTransform);
+        if (transform != null)
+            g.transform (transform);
+        return transform;
+    }
+
+    /**
+     * Might an operation draw anything in the visible area?
+     */
+    private static boolean overlaps (Op op, Rectangle visible)
+    {
+        return visible == null ||
+               (op.left <= visible.x + visible.width && op.right >= visible.x &&
+                op.top <= visible.y + visible.height && op.bottom >= visible.y);
+    }
+
+    /**
+     * The visible area, narrowed down to a clip operation's bounding box.
+     */
+    private static Rectangle intersection (Rectangle visible, Op op)
+    {
+        Rectangle box = new Rectangle (op.left, op.top, op.right - op.left, op.bottom - op.top);
+        return (visible == null) ? box : visible.intersection (box);
+    }
+
+    /**
+     * How many operations are in the display list?
+     *
+     * @return the number of operations
+     */
+    public int getOperationCount ()
+    {
+        return this.ops.length;
+    }
+
+    /**
+     * Getter for the image that was compiled.
+     *
+     * @return the original image
+     */
+    public WorldImage getSource ()
+    {
+        return this.source;
+    }
+
+    /**
+     * Compiling it again wouldn't do anything.
+     */
+    public WorldImage compile ()
+    {
+        return this;
+    }
+
+    boolean containsPoint (double x, double y)
+    {
+        return ((AImage)this.source).containsPoint (x, y);
+    }
+
+    boolean intersectsShape (Shape shape)
+    {
+        return ((AImage)this.source).intersectsShape (shape);
+    }
+
+    boolean overlaps (AImage other)
+    {
+        return ((AImage)this.source).overlaps (other);
+    }
+
+    public boolean equals (Object other)
+    {
+        if (this == other)
+            return true;
+        return super.equals (other) &&
+               this.hash == ((CompiledImage)other).hash &&
+               this.source.equals (((CompiledImage)other).source);
+    }
+
+    public int hashCode ()
+    {
+        return this.hash;
+    }
+
+    public int getTop ()
+    {
+        return this.source.getTop();
+    }
+
+    public int getLeft ()
+    {
+        return this.source.getLeft();
+    }
+
+    public int getBottom ()
+    {
+        return this.source.getBottom();
+    }
+
+    public int getRight ()
+    {
+        return this.source.getRight();
+    }
+
+    public String toIndentedString (String indent)
+    {
+        String newIndent = indent + "  ";
+        return "new CompiledImage(this.source = " +
+        "\n" + newIndent + this.source.toIndentedString (newIndent) +
+        ",\n" + newIndent + "this.ops.length = " + this.ops.length +
+        ",\n" + newIndent + this.cornerString() +
+        ")";
+    }
+}
@@ -11,6 +11,7 @@ public class Crop extends AImage
 {
     private WorldImage base;
     private int left, right, top, bottom;
+    private int hash;
 
     /**
      * Pseudo-constructor for objects of class Crop
@@ -42,15 +43,82 @@ public class Crop extends AImage
         this.right = Math.min(base.getRight(), right);
         this.top = Math.max(base.getTop(), top);
         this.bottom = Math.min(base.getBottom(), bottom);
+        this.hash = super.hashCode() + rotate(this.base.hashCode(), 8) +
+                    rotate(this.left, 24) + rotate(this.top, 16) +
+                    rotate(this.right, 8) + this.bottom;
     }
     
     public void draw(java.awt.Graphics2D g) {
-        java.awt.Shape oldClip = g.getClip();
+        // Clip a copy of the graphics context rather than saving and restoring the clip:
+        // under a rotation, the clip can't be got and set back exactly.
+        java.awt.Graphics2D outerG = g;
+        g = (java.awt.Graphics2D)outerG.create();
         g.clipRect(this.left, this.top, this.getWidth(), this.getHeight());
+        // what's left of the clip is the part of the window that's actually visible
+        java.awt.Rectangle visible = visibleArea (g);
         
-        this.base.draw (g);
+        if (visible != null && (visible.width <= 0 || visible.height <= 0))
+        {
+            countCulled (1); // none of the window shows
+        }
+        else if (visible != null && ((AImage)this.base).hasSceneIndex())
+        {
+            // Only draw the parts that show through the window.  A scene built afresh
+            // every tick has no index, and building one just to draw it once would cost
+            // more than drawing it (letting overlays skip what's outside the clip).
+            this.base.getSceneIndex().draw (g, visible.x, visible.y,
+                                            visible.x + visible.width, visible.y + visible.height);
+        }
+        else
+        {
+            this.base.draw (g);
+        }
         
-        g.setClip (oldClip);
+        g.dispose();
+    }
+    
+    void compileInto (CompiledImage.Recorder list, java.awt.geom.AffineTransform transform)
+    {
+        list.pushClip (this.left, this.top, this.right, this.bottom, transform);
+        ((AImage)this.base).compileInto (list, transform);
+        list.popClip ();
+    }
+    
+    boolean containsPoint (double x, double y)
+    {
+        return x >= this.left && x < this.right && y >= this.top && y < this.bottom &&
+               ((AImage)this.base).containsPoint (x, y);
+    }
+    
+    /**
+     * Only the part of the shape inside the crop can hit the base.
+     */
+    boolean intersectsShape (java.awt.Shape shape)
+    {
+        java.awt.geom.Rectangle2D window = boxOf (this);
+        java.awt.Shape clipped;
+        if (shape instanceof java.awt.geom.Rectangle2D)
+        {
+            clipped = window.createIntersection ((java.awt.geom.Rectangle2D)shape);
+        }
+        else
+        {
+            java.awt.geom.Area area = new java.awt.geom.Area (shape);
+            area.intersect (new java.awt.geom.Area (window));
+            clipped = area;
+        }
+        return ! clipped.getBounds2D().isEmpty() &&
+               ((AImage)this.base).intersectsShape (clipped);
+    }
+    
+    /**
+     * Only the part of the other image inside the crop can hit the base.
+     */
+    boolean overlaps (AImage other)
+    {
+        WorldImage clipped = make (other, this.left, this.right, this.top, this.bottom);
+        return clipped.getWidth() > 0 && clipped.getHeight() > 0 &&
+               ((AImage)this.base).overlaps ((AImage)clipped);
     }
     
     public String toIndentedString (String indent)
@@ -84,15 +152,23 @@ public class Crop extends AImage
     
     public boolean equals (Object other)
     {
+        if (this == other)
+            return true;
         if (super.equals(other))
         {
             Crop otherCrop = (Crop)other;
-            return this.base.equals(otherCrop.base) &&
+            return this.hash == otherCrop.hash &&
                    this.left == otherCrop.left &&
                    this.right == otherCrop.right &&
                    this.top == otherCrop.top &&
-                   this.bottom == otherCrop.bottom;
+                   this.bottom == otherCrop.bottom &&
+                   this.base.equals(otherCrop.base);
         }
         else return false;
     }
+    
+    public int hashCode ()
+    {
+        return this.hash;
+    }
 }
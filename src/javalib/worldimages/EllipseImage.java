@@ -13,6 +13,9 @@ import java.awt.geom.*;
  */
 class EllipseImage extends RectangularImage
 {    
+    /** the shape, made once since the image never changes; it mustn't be modified */
+    private final Ellipse2D shape;
+    
     /**
      * The full constructor for an EllipseImage.
      * 
@@ -22,6 +25,7 @@ class EllipseImage extends RectangularImage
      */
     protected EllipseImage (int width, int height, Color color, Mode mode) {
         super (width, height, color, mode);
+        this.shape = new Ellipse2D.Double(this.getLeft(), this.getTop(), width, height);
     }
     
     /**
@@ -111,6 +115,19 @@ class EllipseImage extends RectangularImage
         return new EllipseImage (this.getWidth(), this.getHeight(), this.getColor(), mode);
     }
                                 
+  /** Add the ellipse to the display list, unless it's empty. */
+  void compileInto(CompiledImage.Recorder list, AffineTransform transform){
+    if (this.getWidth() > 0 && this.getHeight() > 0)
+      list.addShape(this.shape, this.getColor(), this.getMode(), transform);
+  }
+  
+  /** The points the ellipse covers: all of it if it's filled, just its edge if it's outlined. */
+  Shape getOutline(){
+    if (this.getWidth() <= 0 || this.getHeight() <= 0)
+      return new Rectangle2D.Double();
+    return outlineOf(this.shape, this.getMode());
+  }
+  
   /** 
    * Draw this image in the provided <code>Graphics2D</code> context.
    * 
@@ -127,15 +144,13 @@ class EllipseImage extends RectangularImage
     // set the paint to the given color
     g.setPaint(this.getColor());  
     // draw the object
-    Ellipse2D shape = new Ellipse2D.Double(this.getLeft(), this.getTop(),
-                                  this.getWidth(), this.getHeight());
     if (this.getMode() == Mode.FILLED)
     {
-        g.fill (shape);
+        g.fill (this.shape);
     }
     else if (this.getMode() == Mode.OUTLINED)
     {
-        g.draw (shape);
+        g.draw (this.shape);
     }
     // reset the original paint
     g.setPaint(oldPaint);   
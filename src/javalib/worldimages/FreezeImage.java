@@ -12,6 +12,7 @@ import java.awt.image.BufferedImage;
 public class FreezeImage extends RasterImage
 {
     private WorldImage base;
+    private int hash;
     
     /**
      * Constructor for a frozen (memoized) image.
@@ -21,6 +22,7 @@ public class FreezeImage extends RasterImage
     private FreezeImage (WorldImage base)
     {
         this.base = base;
+        this.hash = this.getClass().getName().hashCode() + rotate(base.hashCode(), 8);
     }
     
     /**
@@ -38,39 +40,87 @@ public class FreezeImage extends RasterImage
     
     public boolean equals (Object other)
     {
-        return super.equals (other) &&
+        if (this == other)
+            return true;
+        return this.sameClass (other) &&
+               this.hash == ((FreezeImage)other).hash &&
                this.base.equals (((FreezeImage)other).base);
-               // note that if super.equals(other), they must be the same class,
-               // so since this is a FreezeImage, other must be too, so the cast should work.
+               // Equal bases render to equal pixels, so there's no need to render either one
+               // and compare them pixel by pixel, as RasterImage.equals would.
     }
     
+    /**
+     * The hash of a frozen image depends only on its base, so computing it doesn't
+     * force a rendering.
+     */
+    public int hashCode ()
+    {
+        return this.hash;
+    }
+    
+    /**
+     * Render the base the first time it's needed.  If several threads need it at once,
+     * only one of them renders it, and the rendering isn't published until it's
+     * completely drawn.
+     */
     protected void renderIfNecessary()
     {
         if (this.rendering == null)
         {
-            BufferedImage buffer = new BufferedImage (this.base.getWidth(), this.base.getHeight(), 
-                                                      BufferedImage.TYPE_INT_ARGB);
-            Graphics2D bufferG = buffer.createGraphics();
-            this.base.draw(bufferG);
-            this.setRendering (buffer);
+            synchronized (this)
+            {
+                if (this.rendering == null)
+                {
+                    BufferedImage buffer = new BufferedImage (this.base.getWidth(), this.base.getHeight(), 
+                                                              BufferedImage.TYPE_INT_ARGB);
+                    Graphics2D bufferG = buffer.createGraphics();
+                    this.base.draw(bufferG);
+                    bufferG.dispose();
+                    this.setRendering (buffer);
+                }
+            }
         }
     }
     
+    /**
+     * Hit testing uses the shapes in the base, so it doesn't force a rendering.
+     */
+    boolean containsPoint (double x, double y)
+    {
+        return ((AImage)this.base).containsPoint (x, y);
+    }
+    
+    boolean intersectsShape (java.awt.Shape shape)
+    {
+        return ((AImage)this.base).intersectsShape (shape);
+    }
+    
+    boolean overlaps (AImage other)
+    {
+        return ((AImage)this.base).overlaps (other);
+    }
+    
     public void draw (Graphics2D g)
     {
         this.renderIfNecessary ();
         super.draw (g);
     }
     
+    /**
+     * The rendering will be exactly as wide as the base, so there's no need to render
+     * it just to find out how wide it is.
+     */
     public int getRight ()
     {
-        this.renderIfNecessary ();
-        return super.getRight ();
+        return this.base.getWidth ();
     }
     
+    /**
+     * The rendering will be exactly as tall as the base, so there's no need to render
+     * it just to find out how tall it is.
+     */
     public int getBottom ()
     {
-        this.renderIfNecessary ();
-        return super.getBottom ();
+        return this.base.getHeight ();
     }
 }
@@ -5,6 +5,7 @@ import java.awt.geom.*;
 import java.io.File;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * <p>Copyright 2012 Viera K. Proulx</p>
@@ -87,16 +88,49 @@ public class FromFileImage extends RasterImage{
     this.inputFile = inputFile;
     this.fileName = inputFile.getCanonicalPath();
     
-    if (LoadedImages.table.containsKey (this.fileName))
-    {
-        this.setRendering (LoadedImages.table.get(this.fileName));
-    }
-    else
-    {
-        BufferedImage img = ImageIO.read (this.inputFile);
-        LoadedImages.table.put(this.fileName, img);
-        this.setRendering (img);
-    }
+    this.setRendering (LoadedImages.get (this.fileName, loaderFor (inputFile)));
+  }
+  
+  /**
+   * How to read an image file that isn't in the table of loaded images yet.
+   * 
+   * @param inputFile    the file to read
+   */
+  private static LoadedImages.Loader loaderFor (final File inputFile)
+  {
+    return new LoadedImages.Loader() {
+        public BufferedImage load () throws java.io.IOException
+        {
+            return RasterImage.toARGB (ImageIO.read (inputFile));
+        }
+    };
+  }
+  
+  /**
+   * Start loading an image file into the table of loaded images in the background, so
+   * that <code>make</code> finds it there later.
+   * 
+   * @param fileName    the name of the file, as it would be given to <code>make</code>
+   * @return a future that completes when the image has been loaded, or completes
+   *         exceptionally if it couldn't be
+   */
+  static CompletableFuture<BufferedImage> preload (String fileName)
+  {
+      if (isApplet)
+      {
+          return FromURLImage.preload (FromFileImage.class.getResource("/" + fileName));
+      }
+      try
+      {
+          File inputFile = new File (fileName);
+          return LoadedImages.loadInBackground (inputFile.getCanonicalPath(), loaderFor (inputFile));
+      }
+      catch (java.io.IOException e)
+      {
+          CompletableFuture<BufferedImage> failed = new CompletableFuture<BufferedImage>();
+          failed.completeExceptionally (e);
+          return failed;
+      }
   }
  
   /**
@@ -6,6 +6,7 @@ import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.awt.image.BufferedImage;
 import javax.imageio.ImageIO;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * An image loaded from a URL over the network.
@@ -63,15 +64,62 @@ public class FromURLImage extends RasterImage
         this.url = url;
         this.urlString = url.toString(); // should be normalized and encoded by now.
         
-        if (LoadedImages.table.containsKey (this.urlString))
+        this.setRendering (LoadedImages.get (this.urlString, loaderFor (url)));
+    }
+    
+    /**
+     * How to read an image from a URL that isn't in the table of loaded images yet.
+     * 
+     * @param url          the URL from which to get the image
+     */
+    private static LoadedImages.Loader loaderFor (final URL url)
+    {
+        return new LoadedImages.Loader() {
+            public BufferedImage load () throws java.io.IOException
+            {
+                return RasterImage.toARGB (ImageIO.read (url));
+            }
+        };
+    }
+    
+    /**
+     * Start loading an image from a URL into the table of loaded images in the background,
+     * so that the constructor finds it there later.
+     * 
+     * @param url          the URL from which to get the image
+     * @return a future that completes when the image has been loaded, or completes
+     *         exceptionally if it couldn't be
+     */
+    static CompletableFuture<BufferedImage> preload (URL url)
+    {
+        if (url == null)
+        {
+            CompletableFuture<BufferedImage> failed = new CompletableFuture<BufferedImage>();
+            failed.completeExceptionally (new java.io.FileNotFoundException ("no such resource"));
+            return failed;
+        }
+        return LoadedImages.loadInBackground (url.toString(), loaderFor (url));
+    }
+    
+    /**
+     * Start loading an image from a URL into the table of loaded images in the background,
+     * so that <code>make</code> finds it there later.
+     * 
+     * @param urlString    the URL, written as a string
+     * @return a future that completes when the image has been loaded, or completes
+     *         exceptionally if it couldn't be
+     */
+    static CompletableFuture<BufferedImage> preload (String urlString)
+    {
+        try
         {
-            this.setRendering (LoadedImages.table.get(this.urlString));
+            return preload (new URI(urlString).toURL());
         }
-        else
+        catch (Exception e) // MalformedURLException, URISyntaxException, IllegalArgumentException
         {
-            BufferedImage img = ImageIO.read (this.url);
-            LoadedImages.table.put(this.urlString, img);
-            this.setRendering (img);
+            CompletableFuture<BufferedImage> failed = new CompletableFuture<BufferedImage>();
+            failed.completeExceptionally (e);
+            return failed;
         }
     }
     
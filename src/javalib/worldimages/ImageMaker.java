@@ -29,8 +29,12 @@ public class ImageMaker{
     
 	File inputfile;
 	
-	public static HashMap<String,BufferedImage> loadedImages = 
-	new HashMap<String,BufferedImage>();
+	/**
+	 * The prefix of the names under which the converted images are kept in
+	 * <code>{@link LoadedImages LoadedImages}</code>, to tell them apart from
+	 * the images as they were read, which are kept under the plain file names.
+	 */
+	static final String KEY_PREFIX = "ImageMaker:";
 	
 	/** the buffer that saves the user-generated image */
 	public BufferedImage imageSource;
@@ -39,6 +43,10 @@ public class ImageMaker{
 	public ColorModel cmodel;  
 	public static ColorModel canvasColorModel;
 	public ColorConvertOp colorOp;
+	
+	/** the conversion used by <code>drawOn</code>, made when first needed */
+	private transient ColorConvertOp drawOp;
+	private transient java.awt.color.ColorSpace drawOpTarget;
   
   /**
    * Default constructor, so we can define a subclass that uses
@@ -58,30 +66,64 @@ public class ImageMaker{
     try{
       this.inputfile = new File(filename);
       String abs = inputfile.getCanonicalPath();
-      if(loadedImages.containsKey(abs)){
-        this.image = loadedImages.get(abs);
-        this.width = this.image.getWidth();
-        this.height = this.image.getHeight();
-      }
-      else{
-        this.imageSource = ImageIO.read(this.inputfile);
-        this.width = this.imageSource.getWidth();
-        this.height = this.imageSource.getHeight();
-        
-        this.cmodel = this.imageSource.getColorModel();
-        this.image = 
-        new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        this.colorOp = new ColorConvertOp(this.cmodel.getColorSpace(), 
-                          image.getColorModel().getColorSpace(), null);
-        this.colorOp.filter(this.imageSource, this.image);
-        loadedImages.put(abs, this.image);
-      }
+      this.image = LoadedImages.get(KEY_PREFIX + abs, new LoadedImages.Loader(){
+        public BufferedImage load() throws IOException{
+          return convert(ImageIO.read(inputfile));
+        }
+      });
+      this.width = this.image.getWidth();
+      this.height = this.image.getHeight();
+      if (this.cmodel == null)
+        this.cmodel = this.image.getColorModel();
     }    
 		catch(IOException e){
 			System.out.println("Could not open the file");
 		}
 	}
 	
+	/**
+	 * Convert a newly-read image to the ARGB format used for drawing,
+	 * recording the original along the way.
+	 * 
+	 * @param source the image as it was read
+	 * @return a copy of it in <code>TYPE_INT_ARGB</code> format
+	 */
+	protected BufferedImage convert(BufferedImage source){
+		this.imageSource = source;
+		this.cmodel = source.getColorModel();
+		BufferedImage converted = 
+		new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		this.colorOp = new ColorConvertOp(this.cmodel.getColorSpace(), 
+						  converted.getColorModel().getColorSpace(), null);
+		this.colorOp.filter(source, converted);
+		return converted;
+	}
+	
+	/**
+	 * Draw the image with its NW corner at the given location.  The image is
+	 * already in ARGB form, so its colors are converted only if the destination
+	 * uses a different color space, and then the conversion is set up just once.
+	 * 
+	 * @param g the graphics context to draw on
+	 * @param destination the color model of whatever <code>g</code> draws on
+	 * @param x the x coordinate for the NW corner
+	 * @param y the y coordinate for the NW corner
+	 */
+	public void drawOn(java.awt.Graphics2D g, ColorModel destination, int x, int y){
+		java.awt.color.ColorSpace from = this.image.getColorModel().getColorSpace();
+		java.awt.color.ColorSpace to = destination.getColorSpace();
+		if (from.equals(to)){
+			g.drawImage(this.image, x, y, null);
+		}
+		else{
+			if (this.drawOp == null || !to.equals(this.drawOpTarget)){
+				this.drawOp = new ColorConvertOp(from, to, null);
+				this.drawOpTarget = to;
+			}
+			g.drawImage(this.image, this.drawOp, x, y);
+		}
+	}
+	
 	/**
 	 * Get the specified pixel in the <code>image</code>
 	 * as an RGB color.
@@ -26,7 +26,7 @@ public class ImageMakerApplet extends ImageMaker{
   
   public ImageMakerApplet(String filename){   
     
-    java.net.URL url = this.getClass().getResource("/" + filename);  
+    final java.net.URL url = this.getClass().getResource("/" + filename);  
     
     /** now we set up the image file for the user to process */
     try{
@@ -34,26 +34,17 @@ public class ImageMakerApplet extends ImageMaker{
         throw new IOException("file /" + filename + " not found");
 
       String abs = url.getFile();
-      if(loadedImages.containsKey(abs)){
-        this.image = loadedImages.get(abs);
-        this.width = this.image.getWidth();
-        this.height = this.image.getHeight();
-      }
-      else{
-        //System.out.println("loading image " + filename);
-        //System.out.println("Path: " + url.getPath());
-        this.imageSource = ImageIO.read(url);
-        this.width = this.imageSource.getWidth();
-        this.height = this.imageSource.getHeight();
-        
-        this.cmodel = this.imageSource.getColorModel();
-        this.image = 
-        new BufferedImage(this.width, this.height, BufferedImage.TYPE_INT_ARGB);
-        this.colorOp = new ColorConvertOp(this.cmodel.getColorSpace(), 
-                          image.getColorModel().getColorSpace(), null);
-        this.colorOp.filter(this.imageSource, this.image);
-        loadedImages.put(abs, this.image);
-      }
+      this.image = LoadedImages.get(KEY_PREFIX + abs, new LoadedImages.Loader(){
+        public BufferedImage load() throws IOException{
+          //System.out.println("loading image " + filename);
+          //System.out.println("Path: " + url.getPath());
+          return convert(ImageIO.read(url));
+        }
+      });
+      this.width = this.image.getWidth();
+      this.height = this.image.getHeight();
+      if (this.cmodel == null)
+        this.cmodel = this.image.getColorModel();
     }    
     catch(IOException e){
       System.out.println("Could not open the file");
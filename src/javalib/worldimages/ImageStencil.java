@@ -0,0 +1,26 @@
+package javalib.worldimages;
+
+/**
+ * A function from a pixel and its neighborhood to a packed ARGB color, suitable for use
+ * in the "mapWithNeighbors" method.
+ *
+ * <p>Like <code>{@link IntImageMap IntImageMap}</code>, but instead of the one existing
+ * pixel it gets a read-only view of the whole existing image, so it can blur, sharpen,
+ * detect edges, <em>etc.</em></p>
+ *
+ * @since Oct. 18, 2026
+ */
+public interface ImageStencil<OtherInfo>
+{
+    /**
+     * Given the location of a pixel and the existing image, determine the color of the
+     * corresponding pixel in a new image.
+     * 
+     * @param x       the x coordinate of the pixel
+     * @param y       the y coordinate of the pixel
+     * @param source  the pixels of the existing image
+     * @param other   an arbitrary piece of extra information provided by the caller of "mapWithNeighbors"
+     * @return the packed ARGB color to be used in the pixel of the resulting image
+     */
+    public int pixelARGB (int x, int y, PixelView source, OtherInfo other);
+}
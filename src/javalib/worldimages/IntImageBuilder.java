@@ -0,0 +1,24 @@
+package javalib.worldimages;
+
+/**
+ * A function from (x,y) to a packed ARGB color, suitable for use in the "buildARGB" method.
+ *
+ * <p>Like <code>{@link ImageBuilder ImageBuilder}</code>, but it works with colors packed into
+ * ints (as in <code>Color.getRGB()</code>: alpha in the top byte, then red, green and blue),
+ * so no <code>Color</code> object has to be made for each pixel.  The pixels are asked for
+ * row by row, from the top-left corner.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public interface IntImageBuilder<OtherInfo>
+{
+    /**
+     * Given the location of a pixel, determine what color it should be
+     * 
+     * @param x     the x coordinate of the pixel
+     * @param y     the y coordinate of the pixel
+     * @param other an arbitrary piece of extra information provided by the caller of "buildARGB"
+     * @return the packed ARGB color to be used in the pixel of the resulting image
+     */
+    public int pixelARGB (int x, int y, OtherInfo other);
+}
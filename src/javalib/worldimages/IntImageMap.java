@@ -0,0 +1,25 @@
+package javalib.worldimages;
+
+/**
+ * A function from packed ARGB color to packed ARGB color, suitable for use in the "mapARGB" method.
+ *
+ * <p>Like <code>{@link ImageMap ImageMap}</code>, but it works with colors packed into
+ * ints (as in <code>Color.getRGB()</code>: alpha in the top byte, then red, green and blue),
+ * so no <code>Color</code> object has to be made for each pixel.  The pixels are visited
+ * row by row, from the top-left corner.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public interface IntImageMap<OtherInfo>
+{
+    /**
+     * Given information about a pixel in an existing image, determine the color of a pixel in a new image.
+     * 
+     * @param x       the x coordinate of the existing pixel
+     * @param y       the y coordinate of the existing pixel
+     * @param oldARGB the packed ARGB color of the existing pixel
+     * @param other   an arbitrary piece of extra information provided by the caller of "mapARGB"
+     * @return the packed ARGB color to be used in the corresponding pixel of the resulting image
+     */
+    public int pixelARGB (int x, int y, int oldARGB, OtherInfo other);
+}
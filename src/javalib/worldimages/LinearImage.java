@@ -1,6 +1,7 @@
 package javalib.worldimages;
 
 import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
 import java.awt.geom.Point2D;
 
 
@@ -15,6 +16,7 @@ public class LinearImage extends AImage
     private WorldImage base;
     private AffineTransform transform;
     private int top, left, bottom, right;
+    private int hash;
 
     /**
      * Constructor for objects of class LinearImage
@@ -27,6 +29,23 @@ public class LinearImage extends AImage
         this.base = base;
         this.transform = transform;
         this.setBBox();
+        this.hash = super.hashCode() + rotate(this.base.hashCode(), 8) + hashOf(this.transform);
+    }
+    
+    /**
+     * Hash a transform the way its equals method compares them.  AffineTransform's own
+     * hashCode tells 0.0 from -0.0 (which turn up after rotations and reflections), though
+     * equals doesn't, so equal transforms could get different hashes.
+     */
+    private static int hashOf(AffineTransform transform)
+    {
+        double[] matrix = new double[6];
+        transform.getMatrix(matrix);
+        for (int ii = 0; ii < matrix.length; ++ii)
+        {
+            matrix[ii] += 0.0; // turns -0.0 into 0.0, and leaves everything else alone
+        }
+        return java.util.Arrays.hashCode(matrix);
     }
     
     /**
@@ -89,15 +108,41 @@ public class LinearImage extends AImage
 
     public boolean equals (Object other)
     {
+        if (this == other)
+            return true;
         if (super.equals (other))
         {
             LinearImage otherLI = (LinearImage)other;
-            return this.base.equals(otherLI.base) &&
-                   this.transform.equals(otherLI.transform);                   
+            return this.hash == otherLI.hash &&
+                   this.transform.equals(otherLI.transform) &&
+                   this.base.equals(otherLI.base);
         }
         else return false;
     }
     
+    public int hashCode ()
+    {
+        return this.hash;
+    }
+    
+    /**
+     * Getter for the image being transformed.
+     * 
+     * @return the base image
+     */
+    WorldImage getBase() {
+        return this.base;
+    }
+    
+    /**
+     * Getter for the transform.
+     * 
+     * @return a copy of the transform, which the caller may change freely
+     */
+    AffineTransform getTransform() {
+        return new AffineTransform (this.transform);
+    }
+    
     /**
      * Getter for the translation field.
      * 
@@ -159,6 +204,70 @@ public class LinearImage extends AImage
         g.setTransform (oldTransform);
     }
 
+    /**
+     * Multiply this transform into the one from outside, and compile the base with that.
+     */
+    void compileInto (CompiledImage.Recorder list, AffineTransform outer)
+    {
+        AffineTransform combined = new AffineTransform (this.transform);
+        if (outer != null)
+            combined.preConcatenate (outer);
+        ((AImage)this.base).compileInto (list, combined);
+    }
+    
+    /**
+     * Undo the transform on the point, and ask the base.
+     */
+    boolean containsPoint (double x, double y)
+    {
+        Point2D point = new Point2D.Double (x, y);
+        try
+        {
+            this.transform.inverseTransform (point, point);
+        }
+        catch (NoninvertibleTransformException e)
+        {
+            return false; // squashed flat, so it covers no area
+        }
+        return ((AImage)this.base).containsPoint (point.getX(), point.getY());
+    }
+    
+    boolean intersectsShape (java.awt.Shape shape)
+    {
+        AffineTransform inverse = this.getInverse();
+        return inverse != null &&
+               ((AImage)this.base).intersectsShape (inverse.createTransformedShape (shape));
+    }
+    
+    /**
+     * Undo the transform on the other image, which just wraps it in another LinearImage,
+     * and ask the base.
+     */
+    boolean overlaps (AImage other)
+    {
+        AffineTransform inverse = this.getInverse();
+        if (inverse == null)
+            return false;
+        WorldImage undone = make (inverse, other);
+        return boxesMeet (this.base, undone) &&
+               ((AImage)this.base).overlaps ((AImage)undone);
+    }
+    
+    /**
+     * @return the inverse of the transform, or null if it squashes things flat
+     */
+    private AffineTransform getInverse ()
+    {
+        try
+        {
+            return this.transform.createInverse();
+        }
+        catch (NoninvertibleTransformException e)
+        {
+            return null;
+        }
+    }
+    
     public String toIndentedString (String indent)
     {
         String newIndent = indent + "  ";
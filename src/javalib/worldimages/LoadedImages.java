@@ -1,17 +1,309 @@
 package javalib.worldimages;
 
+import java.io.IOException;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
 import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
 
 /**
  * Singleton class to hold a table of already-loaded images.
- * 
+ *
+ * <p>There's one table for the whole program, shared by <code>FromFileImage</code>,
+ * <code>FromURLImage</code> and <code>ImageMaker</code>.  It's safe to use from several
+ * threads at once, and if several threads ask for the same image at once, only one of
+ * them actually loads it while the others wait for it.  It holds at most
+ * <code>getMaxBytes()</code> bytes of pixels: when it's full, the images that haven't
+ * been asked for in the longest time are dropped from the table (though of course any
+ * images already made from them still work).</p>
+ *
  * @author Stephen Bloch, based on Viera Proulx's ImageMaker class
- * @version Dec. 25, 2012
+ * @version Oct. 18, 2026
  */
 public class LoadedImages
 {
     private LoadedImages () { }
-    public static HashMap<String,BufferedImage> table =
-	new HashMap<String,BufferedImage> ();
+
+    /**
+     * Something that actually loads an image, if it isn't in the table already.
+     */
+    public static interface Loader
+    {
+        /**
+         * @return the newly-loaded image
+         * @throws IOException if the image couldn't be read
+         */
+        public BufferedImage load () throws IOException;
+    }
+
+    /** The default limit on the size of the table: 256 megabytes. */
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+    /** the images, from least to most recently used */
+    private static final LinkedHashMap<String,BufferedImage> table =
+        new LinkedHashMap<String,BufferedImage> (16, 0.75f, true);
+
+    /** the images being loaded right now, so other threads can wait for them */
+    private static final HashMap<String,FutureTask<BufferedImage>> loading =
+        new HashMap<String,FutureTask<BufferedImage>> ();
+
+    /** the threads that load images in the background; created when first needed */
+    private static ExecutorService preloader = null;
+
+    private static long maxBytes = DEFAULT_MAX_BYTES;
+    private static long bytes = 0;
+    private static long hits = 0, misses = 0, evictions = 0;
+
+    /**
+     * Get an image from the table, loading it if it isn't there.
+     *
+     * @param key     the name of the image (<em>e.g.</em> its canonical path or its URL)
+     * @param loader  what to do to load the image if it isn't in the table
+     * @return the image
+     * @throws IOException if the image had to be loaded and couldn't be
+     */
+    public static BufferedImage get (String key, final Loader loader) throws IOException
+    {
+        FutureTask<BufferedImage> task;
+        boolean mine = false;
+        synchronized (LoadedImages.class)
+        {
+            BufferedImage image = table.get (key);
+            if (image != null)
+            {
+                ++hits;
+                return image;
+            }
+            ++misses;
+            task = loading.get (key);
+            if (task == null)
+            {
+                task = new FutureTask<BufferedImage> (new Callable<BufferedImage>() {
+                    public BufferedImage call () throws IOException
+                    {
+                        return loader.load ();
+                    }
+                });
+                loading.put (key, task);
+                mine = true;
+            }
+        }
+
+        // Load it (or wait for whoever got here first to load it) without holding the lock,
+        // so other images can be looked up and loaded meanwhile.
+        if (mine)
+            task.run ();
+        BufferedImage image = null;
+        try
+        {
+            image = waitFor (task);
+            return image;
+        }
+        finally
+        {
+            if (mine)
+            {
+                synchronized (LoadedImages.class)
+                {
+                    loading.remove (key);
+                    if (image != null)
+                        put (key, image);
+                }
+            }
+        }
+    }
+
+    /**
+     * Start getting an image into the table on a background thread, so a later
+     * <code>get</code> finds it there (or waits for it, if it's still loading).
+     * Several images can be loaded this way at once, one per processor.
+     *
+     * @param key     the name of the image
+     * @param loader  what to do to load the image if it isn't in the table
+     * @return a future that completes with the image, or completes exceptionally
+     *         (with the <code>IOException</code> as its cause) if it couldn't be loaded
+     */
+    public static CompletableFuture<BufferedImage> loadInBackground (final String key,
+                                                                     final Loader loader)
+    {
+        return CompletableFuture.supplyAsync (new java.util.function.Supplier<BufferedImage>() {
+            public BufferedImage get ()
+            {
+                try
+                {
+                    return LoadedImages.get (key, loader);
+                }
+                catch (IOException e)
+                {
+                    throw new CompletionException (e);
+                }
+            }
+        }, getPreloader ());
+    }
+
+    /**
+     * The pool of background loading threads.  They're daemon threads, so they don't
+     * keep the program running once everything else is done.
+     */
+    private static synchronized ExecutorService getPreloader ()
+    {
+        if (preloader == null)
+        {
+            preloader = Executors.newFixedThreadPool (Runtime.getRuntime().availableProcessors(),
+                                                      new ThreadFactory() {
+                public Thread newThread (Runnable r)
+                {
+                    Thread thread = new Thread (r, "image preloader");
+                    thread.setDaemon (true);
+                    return thread;
+                }
+            });
+        }
+        return preloader;
+    }
+
+    /**
+     * Wait for a loading task to finish, and get its result.
+     */
+    private static BufferedImage waitFor (FutureTask<BufferedImage> task) throws IOException
+    {
+        boolean interrupted = false;
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    return task.get ();
+                }
+                catch (InterruptedException e)
+                {
+                    // the image is being loaded for other threads too, so keep waiting for it
+                    interrupted = true;
+                }
+            }
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause ();
+            if (cause instanceof IOException)
+                throw (IOException)cause;
+            else if (cause instanceof RuntimeException)
+                throw (RuntimeException)cause;
+            else if (cause instanceof Error)
+                throw (Error)cause;
+            else
+                throw new IOException (cause);
+        }
+        finally
+        {
+            if (interrupted)
+                Thread.currentThread ().interrupt ();
+        }
+    }
+
+    /**
+     * Add an image to the table, then drop the least recently used ones until
+     * the table fits in its limit again.  Must be called holding the lock.
+     */
+    private static void put (String key, BufferedImage image)
+    {
+        BufferedImage old = table.put (key, image);
+        if (old != null)
+            bytes -= sizeOf (old);
+        bytes += sizeOf (image);
+        evictIfNecessary ();
+    }
+
+    /**
+     * Drop the least recently used images until the table fits in its limit, but never
+     * the most recently used one.  Must be called holding the lock.
+     */
+    private static void evictIfNecessary ()
+    {
+        Iterator<Map.Entry<String,BufferedImage>> it = table.entrySet ().iterator ();
+        while (bytes > maxBytes && table.size () > 1)
+        {
+            bytes -= sizeOf (it.next ().getValue ());
+            it.remove ();
+            ++evictions;
+        }
+    }
+
+    /**
+     * How many bytes of pixels does an image hold?
+     */
+    private static long sizeOf (BufferedImage image)
+    {
+        DataBuffer data = image.getRaster ().getDataBuffer ();
+        return (long)data.getSize () * data.getNumBanks ()
+                     * DataBuffer.getDataTypeSize (data.getDataType ()) / 8;
+    }
+
+    /**
+     * Set the limit on how many bytes of pixels the table may hold, dropping the
+     * least recently used images right away if it's over the new limit.
+     *
+     * @param limit   the new limit, in bytes
+     */
+    public static synchronized void setMaxBytes (long limit)
+    {
+        maxBytes = limit;
+        evictIfNecessary ();
+    }
+
+    /** @return the limit on how many bytes of pixels the table may hold */
+    public static synchronized long getMaxBytes ()
+    {
+        return maxBytes;
+    }
+
+    /** @return how many bytes of pixels the table holds now */
+    public static synchronized long getBytes ()
+    {
+        return bytes;
+    }
+
+    /** @return how many images the table holds now */
+    public static synchronized int size ()
+    {
+        return table.size ();
+    }
+
+    /** @return how many times an image was found in the table */
+    public static synchronized long getHits ()
+    {
+        return hits;
+    }
+
+    /** @return how many times an image had to be loaded (or waited for) */
+    public static synchronized long getMisses ()
+    {
+        return misses;
+    }
+
+    /** @return how many images have been dropped to keep the table within its limit */
+    public static synchronized long getEvictions ()
+    {
+        return evictions;
+    }
+
+    /**
+     * Empty the table (but leave the counters alone).
+     */
+    public static synchronized void clear ()
+    {
+        table.clear ();
+        bytes = 0;
+    }
 }
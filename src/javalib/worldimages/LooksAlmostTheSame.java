@@ -0,0 +1,147 @@
+package javalib.worldimages;
+import tester.Equivalence;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+
+/**
+ * An equivalence that checks whether two images render <em>nearly</em> the same, forgiving
+ * small differences in color (<em>e.g.</em> from anti-aliasing, which varies a little from one
+ * JVM to another) and, optionally, a few pixels that are completely different.
+ *
+ * <p>Unlike <code>{@link LooksTheSame LooksTheSame}</code>, it doesn't freeze both images.
+ * Each image is drawn just as freezing it would draw it, so it compares the same pixels as
+ * <code>LooksTheSame</code>, into a buffer only as big as the smaller of the two.  Before
+ * comparing every pixel, it compares a small "fingerprint" of each, one pixel out of every
+ * few each way, which catches most mismatches cheaply.  The full comparison goes tile by
+ * tile, and gives up at the first tile that puts it over the limit of differing pixels.</p>
+ *
+ * <p>Images whose widths or heights differ by more than one pixel are never equivalent.</p>
+ *
+ * @version Oct. 18, 2026
+ */
+public class LooksAlmostTheSame implements Equivalence<WorldImage>
+{
+    /**
+     * An instance with the default tolerances: each color channel (and alpha) may differ by
+     * up to <code>DEFAULT_TOLERANCE</code>, and no pixel may differ by more than that.
+     */
+    public static final LooksAlmostTheSame it =
+        new LooksAlmostTheSame (LooksAlmostTheSame.DEFAULT_TOLERANCE, 0);
+
+    /** How much a color channel may differ by default, out of 255. */
+    public static final int DEFAULT_TOLERANCE = 16;
+
+    /** The side of the square tiles in which the full-resolution comparison goes. */
+    private static final int TILE = 64;
+
+    /** The largest side of a fingerprint, in pixels. */
+    private static final int FINGERPRINT = 32;
+
+    private int tolerance;
+    private int maxDifferentPixels;
+
+    /**
+     * Constructor for an equivalence with the specified tolerances.
+     *
+     * @param tolerance            how much each channel (red, green, blue, alpha) of a pixel may
+     *                             differ, from 0 (exactly) to 255 (anything goes)
+     * @param maxDifferentPixels   how many pixels may differ by more than that
+     */
+    public LooksAlmostTheSame (int tolerance, int maxDifferentPixels)
+    {
+        this.tolerance = Math.max (0, Math.min (255, tolerance));
+        this.maxDifferentPixels = Math.max (0, maxDifferentPixels);
+    }
+
+    public boolean equivalent (WorldImage t1, WorldImage t2)
+    {
+        if (t1 == t2 || t1.equals(t2)) return true;
+
+        if (Math.abs (t1.getWidth() - t2.getWidth()) > 1 ||
+            Math.abs (t1.getHeight() - t2.getHeight()) > 1)
+            return false;
+        int width = Math.min (t1.getWidth(), t2.getWidth());
+        int height = Math.min (t1.getHeight(), t2.getHeight());
+        if (width <= 0 || height <= 0)
+            return true;
+
+        int[] pixels1 = render (t1, width, height);
+        int[] pixels2 = render (t2, width, height);
+
+        // Rule out most mismatches cheaply, by comparing the fingerprints: the pixel in the
+        // middle of every scale-by-scale square.  (They're sampled from the full rendering,
+        // not drawn small, because a shape drawn small isn't its full-size pixels sampled.)
+        // Every pixel that differs here differs in the full comparison too, so too many of
+        // them is already an answer.
+        int scale = (Math.max (width, height) + FINGERPRINT - 1) / FINGERPRINT;
+        if (scale > 1)
+        {
+            int different = 0;
+            for (int y = scale / 2; y < height; y += scale)
+            {
+                for (int ii = y * width + scale / 2; ii < (y + 1) * width; ii += scale)
+                {
+                    if (pixels1[ii] != pixels2[ii] &&
+                        channelDifference (pixels1[ii], pixels2[ii]) > this.tolerance &&
+                        ++different > this.maxDifferentPixels)
+                        return false;
+                }
+            }
+        }
+
+        int different = 0;
+        for (int tileTop = 0; tileTop < height; tileTop += TILE)
+        {
+            for (int tileLeft = 0; tileLeft < width; tileLeft += TILE)
+            {
+                int tileBottom = Math.min (height, tileTop + TILE);
+                int tileRight = Math.min (width, tileLeft + TILE);
+                for (int y = tileTop; y < tileBottom; ++y)
+                {
+                    for (int ii = y * width + tileLeft; ii < y * width + tileRight; ++ii)
+                    {
+                        if (pixels1[ii] != pixels2[ii] &&
+                            channelDifference (pixels1[ii], pixels2[ii]) > this.tolerance)
+                            ++different;
+                    }
+                }
+                if (different > this.maxDifferentPixels)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Draw an image into a new buffer of the specified size, the way
+     * <code>{@link FreezeImage FreezeImage}</code> does.
+     *
+     * @param image    the image to draw
+     * @param width    the width of the buffer
+     * @param height   the height of the buffer
+     * @return the pixels of the buffer, as packed ARGB ints in row-major order
+     */
+    private static int[] render (WorldImage image, int width, int height)
+    {
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = buffer.createGraphics();
+        image.draw (g);
+        g.dispose();
+        return ((DataBufferInt)buffer.getRaster().getDataBuffer()).getData();
+    }
+
+    /**
+     * The largest difference between two packed ARGB pixels in any one channel.
+     */
+    private static int channelDifference (int argb1, int argb2)
+    {
+        int result = 0;
+        for (int shift = 0; shift < 32; shift += 8)
+        {
+            int diff = Math.abs (((argb1 >>> shift) & 0xFF) - ((argb2 >>> shift) & 0xFF));
+            result = Math.max (result, diff);
+        }
+        return result;
+    }
+}
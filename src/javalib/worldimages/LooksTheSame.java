@@ -4,6 +4,9 @@ import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.awt.image.Raster;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.util.Arrays;
 
 /**
  * A singleton class to represent the operation of checking whether two images render the same.
@@ -55,6 +58,15 @@ public class LooksTheSame implements Equivalence<WorldImage>
         // A DataBuffer doesn't expose its underlying array(s), so one might need to loop
         // over all the banks and all the elements, calling getElem() and comparing them.
         if (b1 == b2) return true;
+        if (b1.getWidth() != b2.getWidth() || b1.getHeight() != b2.getHeight())
+            return false;
+        
+        if (b1.getType() == b2.getType() &&
+            (b1.getType() == BufferedImage.TYPE_INT_ARGB ||
+             b1.getType() == BufferedImage.TYPE_INT_RGB))
+        {
+            return equalIntRasters (b1.getRaster(), b2.getRaster());
+        }
         
         Raster r1 = b1.getData();
         Raster r2 = b2.getData();
@@ -93,5 +105,56 @@ public class LooksTheSame implements Equivalence<WorldImage>
         }
         return true;
     }
+    
+    /**
+     * Compare two same-sized rasters of one-int-per-pixel images, row by row, straight from
+     * their backing arrays: no copy of the raster (as getData() makes), and no getElem() call
+     * per pixel.
+     * 
+     * @param r1    the raster of a TYPE_INT_ARGB or TYPE_INT_RGB image
+     * @param r2    the raster of another image of the same type and size
+     * @return      true if they have the exact same pixel values
+     * @since Oct. 18, 2026
+     */
+    private static boolean equalIntRasters (WritableRaster r1, WritableRaster r2)
+    {
+        SinglePixelPackedSampleModel sm1 = (SinglePixelPackedSampleModel)r1.getSampleModel();
+        SinglePixelPackedSampleModel sm2 = (SinglePixelPackedSampleModel)r2.getSampleModel();
+        DataBufferInt db1 = (DataBufferInt)r1.getDataBuffer();
+        DataBufferInt db2 = (DataBufferInt)r2.getDataBuffer();
+        int[] data1 = db1.getData();
+        int[] data2 = db2.getData();
+        
+        int width = r1.getWidth();
+        int height = r1.getHeight();
+        int stride1 = sm1.getScanlineStride();
+        int stride2 = sm2.getScanlineStride();
+        // where the top-left pixel of each raster is, within its array
+        int start1 = db1.getOffset() + sm1.getOffset (r1.getMinX() - r1.getSampleModelTranslateX(),
+                                                      r1.getMinY() - r1.getSampleModelTranslateY());
+        int start2 = db2.getOffset() + sm2.getOffset (r2.getMinX() - r2.getSampleModelTranslateX(),
+                                                      r2.getMinY() - r2.getSampleModelTranslateY());
+        if (data1 == data2 && start1 == start2 && stride1 == stride2)
+        {
+            // the very same pixels (sub-images of one buffer elsewhere in it aren't)
+            return true;
+        }
+        
+        if (stride1 == width && stride2 == width)
+        {
+            // the usual case: the pixels are one contiguous run in each array
+            return Arrays.equals (data1, start1, start1 + width * height,
+                                  data2, start2, start2 + width * height);
+        }
+        
+        for (int row = 0; row < height; ++row)
+        {
+            int from1 = start1 + row * stride1;
+            int from2 = start2 + row * stride2;
+            if (! Arrays.equals (data1, from1, from1 + width, data2, from2, from2 + width))
+                return false;
+        }
+        return true;
+    }
 
 }
@@ -1,123 +1,386 @@
 package javalib.worldimages;
 // import java.awt.geom.AffineTransform;
 
+import java.util.Arrays;
+import java.util.List;
+
 
 /**
- * The overlay of two images.
- * 
+ * The overlay of two or more images.
+ *
+ * <p>The images are kept in one flat array, from back to front, rather than as
+ * a binary tree: the pseudo-constructor splices the parts of any overlay it's given
+ * into the new one, so overlaying thousands of sprites one at a time still
+ * produces a single node, which draws, compares, and prints with a loop rather
+ * than thousands of nested calls.</p>
+ *
+ * <p>Overlaying more images in front of an existing overlay doesn't copy its parts
+ * either: the new overlay shares the old one's array and adds its parts after them,
+ * as long as nothing else has added parts there already.  Its bounding box and hash
+ * are likewise worked out from the old overlay's and those of the new parts, so
+ * building a scene one sprite at a time takes time in proportion to the number of
+ * sprites.</p>
+ *
  * @author Stephen Bloch
  * @version Dec. 5, 2012
  */
 public class OverlayImage extends AImage
 {
-    private WorldImage back, front;
+    // The parts, back to front, are the first count elements of images; at least two,
+    // none of them OverlayImages.  Later elements may belong to overlays built on this one.
+    final WorldImage[] images;
+    private final int count;
+    private final Claim claim; // shared by all the overlays using this array
+    private int top, left, bottom, right;
+    private int hash;
+
+    /**
+     * How much of an array of parts is in use by some overlay.  An overlay can add parts
+     * to the array in place only if it's the one using all of that much.
+     */
+    private static final class Claim
+    {
+        int used;
+    }
 
     /**
      * Constructor for objects of class OverlayImage
-     * 
-     * @param back   an image to be drawn "in the background"
-     * @param front  an image to be drawn "in the foreground"
+     *
+     * @param images   the images to overlay, from back to front, in its first
+     *                 <code>count</code> elements.  Not copied, so the caller mustn't
+     *                 change those elements afterwards.
+     * @param count    how many images to overlay
+     * @param claim    how much of the array is in use
+     * @param prefix   an overlay whose parts are the first ones in the array, or null
      */
-    private OverlayImage(WorldImage back, WorldImage front)
+    private OverlayImage(WorldImage[] images, int count, Claim claim, OverlayImage prefix)
     {
         // initialise instance variables
         super();
-        this.back = back;
-        this.front = front;
-    }    
-    
+        this.images = images;
+        this.count = count;
+        this.claim = claim;
+        int start = 0;
+        if (prefix == null)
+        {
+            this.top = Integer.MAX_VALUE;
+            this.left = Integer.MAX_VALUE;
+            this.bottom = Integer.MIN_VALUE;
+            this.right = Integer.MIN_VALUE;
+            this.hash = super.hashCode();
+        }
+        else
+        {
+            start = prefix.count;
+            this.top = prefix.top;
+            this.left = prefix.left;
+            this.bottom = prefix.bottom;
+            this.right = prefix.right;
+            this.hash = prefix.hash;
+        }
+        this.addParts (start);
+    }
+
+    /**
+     * Extend the bounding box and the structural hash, which are already computed for
+     * the parts before <code>start</code>, with the (already-computed) bounding boxes and
+     * hashes of the rest, so the getters don't have to recur all the way down a
+     * deeply-nested overlay.
+     */
+    private void addParts(int start)
+    {
+        for (int ii = start; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            this.top = Math.min (this.top, image.getTop());
+            this.left = Math.min (this.left, image.getLeft());
+            this.bottom = Math.max (this.bottom, image.getBottom());
+            this.right = Math.max (this.right, image.getRight());
+            this.hash = rotate(this.hash, 16) + image.hashCode();
+        }
+    }
+
     /**
      * Pseudo-constructor
-     * 
+     *
      * @param back
      * @param front
      */
-    static OverlayImage make (WorldImage back, WorldImage front)
+    static WorldImage make (WorldImage back, WorldImage front)
+    {
+        return make (new WorldImage[] { back, front });
+    }
+
+    /**
+     * Pseudo-constructor for any number of images.
+     *
+     * <p>Any of the images that are themselves overlays are spliced in part by part,
+     * so the result is never an overlay of overlays.  Drawing order is unchanged by this,
+     * since overlaying is associative.  If the back image is an overlay, the result
+     * shares its array of parts when it can, rather than copying them.</p>
+     *
+     * @param images   one or more images, from back to front
+     * @return an overlay of the images, or the image itself if there's only one
+     */
+    static WorldImage make (WorldImage... images)
     {
-        return new OverlayImage (back, front);
+        OverlayImage prefix = null;
+        int first = 0;
+        if (images.length > 0 && images[0] instanceof OverlayImage)
+        {
+            prefix = (OverlayImage)images[0];
+            first = 1;
+        }
+
+        int count = (prefix == null) ? 0 : prefix.count;
+        for (int ii = first; ii < images.length; ++ii)
+        {
+            if (images[ii] instanceof OverlayImage)
+                count += ((OverlayImage)images[ii]).count;
+            else
+                ++count;
+        }
+        if (prefix != null && count == prefix.count)
+            return prefix;
+
+        WorldImage[] flat = null;
+        Claim claim = null;
+        if (prefix != null)
+        {
+            synchronized (prefix.claim)
+            {
+                if (prefix.claim.used == prefix.count && count <= prefix.images.length)
+                {
+                    // nothing has been added after the prefix's parts, so add ours there
+                    flat = prefix.images;
+                    claim = prefix.claim;
+                    claim.used = count;
+                }
+            }
+        }
+        int ii = 0;
+        if (flat == null)
+        {
+            // Leave room to add more parts later, so a scene built a sprite at a time
+            // only copies its parts now and then.
+            flat = new WorldImage[(prefix == null) ? count : Math.max (count, 2 * prefix.count)];
+            claim = new Claim ();
+            claim.used = count;
+            if (prefix != null)
+                System.arraycopy (prefix.images, 0, flat, 0, prefix.count);
+        }
+        if (prefix != null)
+            ii = prefix.count;
+
+        for (int jj = first; jj < images.length; ++jj)
+        {
+            WorldImage image = images[jj];
+            if (image instanceof OverlayImage)
+            {
+                OverlayImage parts = (OverlayImage)image;
+                System.arraycopy (parts.images, 0, flat, ii, parts.count);
+                ii += parts.count;
+            }
+            else
+            {
+                flat[ii] = image;
+                ++ii;
+            }
+        }
+
+        if (count == 1)
+            return flat[0];
+        else
+            return new OverlayImage (flat, count, claim, prefix);
+    }
+
+    /**
+     * Pseudo-constructor for any number of images.
+     *
+     * @param images   one or more images, from back to front
+     * @return an overlay of the images, or the image itself if there's only one
+     */
+    static WorldImage make (List<WorldImage> images)
+    {
+        return make (images.toArray (new WorldImage[images.size()]));
     }
-        
+
     public boolean equals (Object other)
     {
-        return super.equals(other) &&
-               this.back.equals (((OverlayImage)other).back) &&
-               this.front.equals (((OverlayImage)other).front);
+        if (this == other)
+            return true;
+        if (! super.equals(other))
+            return false;
+        OverlayImage that = (OverlayImage)other;
+        if (this.hash != that.hash || this.count != that.count)
+            return false;
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            if (! this.images[ii].equals (that.images[ii]))
+                return false;
+        }
+        return true;
     }
-    
+
     public int hashCode ()
     {
-        return super.hashCode() + rotate(this.back.hashCode(), 16) + this.front.hashCode();
+        return this.hash;
     }
-            
+
     /**
      * Getter for the background part of an Overlay.
-     * 
-     * @return the background image
+     *
+     * @return the overlay of all but the front-most image
      */
     public WorldImage getBack ()
     {
-        return this.back;
+        return make (Arrays.copyOf (this.images, this.count - 1));
     }
-    
+
     /**
      * Getter for the foreground part of an Overlay.
-     * 
-     * @return the foreground image
+     *
+     * @return the front-most image
      */
     public WorldImage getFront ()
     {
-        return this.front;
+        return this.images[this.count - 1];
     }
-    
+
+    /**
+     * How many images are overlaid here?
+     *
+     * @return the number of images, at least two
+     */
+    public int getImageCount ()
+    {
+        return this.count;
+    }
+
+    /**
+     * Getter for one of the overlaid images.
+     *
+     * @param index   which image, counting from 0 at the back
+     * @return the specified image
+     */
+    public WorldImage getImage (int index)
+    {
+        if (index < 0 || index >= this.count)
+            throw new ArrayIndexOutOfBoundsException (index);
+        return this.images[index];
+    }
+
     public int getTop ()
     {
-        return Math.min (this.back.getTop(), this.front.getTop());
+        return this.top;
     }
-    
+
     public int getBottom ()
     {
-        return Math.max (this.back.getBottom(), this.front.getBottom());
+        return this.bottom;
     }
-    
-    public int getLeft () 
+
+    public int getLeft ()
     {
-        return Math.min (this.back.getLeft(), this.front.getLeft());
+        return this.left;
     }
-    
+
     public int getRight ()
     {
-        return Math.max (this.back.getRight(), this.front.getRight());
+        return this.right;
     }
-    
+
     public int getWidth ()
     {
-        return this.getRight() - this.getLeft();
+        return this.right - this.left;
     }
-    
+
     public int getHeight ()
     {
-        return this.getBottom() - this.getTop();
+        return this.bottom - this.top;
     }
-    
+
     public String toIndentedString (String indent)
     {
         String newIndent = indent + "  ";
-        return "new OverlayImage(" +
-               "\n" + newIndent + "this.back = " +
-               this.back.toIndentedString(newIndent) +
-               ",\n" + newIndent + "this.front = " +
-               this.front.toIndentedString(newIndent) +
-               ",\n" + newIndent + this.cornerString() +
-        ")";
+        StringBuilder result = new StringBuilder ("new OverlayImage(");
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            result.append ("\n").append (newIndent)
+                  .append ("this.images[").append (ii).append ("] = ")
+                  .append (this.images[ii].toIndentedString(newIndent))
+                  .append (",");
+        }
+        return result.append ("\n").append (newIndent).append (this.cornerString())
+                     .append (")").toString();
     }
-    
+
+    /**
+     * Draw the parts from back to front, skipping any that are entirely outside the clip
+     * (or the canvas).
+     */
     public void draw(java.awt.Graphics2D g) {
-        this.back.draw (g);
-        this.front.draw (g);
+        java.awt.Rectangle visible = visibleArea (g);
+        int skipped = 0;
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            if (mayShow (image, visible))
+                image.draw (g);
+            else
+                ++skipped;
+        }
+        if (skipped > 0)
+            countCulled (skipped);
+    }
+    
+    void compileInto (CompiledImage.Recorder list, java.awt.geom.AffineTransform transform)
+    {
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            ((AImage)image).compileInto (list, transform);
+        }
+    }
+    
+    boolean containsPoint (double x, double y)
+    {
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            if (boxContains (image, x, y) && ((AImage)image).containsPoint (x, y))
+                return true;
+        }
+        return false;
     }
-            
     
+    boolean intersectsShape (java.awt.Shape shape)
+    {
+        java.awt.geom.Rectangle2D box = shape.getBounds2D();
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            if (box.intersects (image.getLeft() - 1, image.getTop() - 1,
+                                image.getWidth() + 2, image.getHeight() + 2) &&
+                ((AImage)image).intersectsShape (shape))
+                return true;
+        }
+        return false;
+    }
     
+    boolean overlaps (AImage other)
+    {
+        for (int ii = 0; ii < this.count; ++ii)
+        {
+            WorldImage image = this.images[ii];
+            if (boxesMeet (image, other) && ((AImage)image).overlaps (other))
+                return true;
+        }
+        return false;
+    }
+
+
+
 
 
 }
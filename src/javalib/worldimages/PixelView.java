@@ -0,0 +1,70 @@
+package javalib.worldimages;
+
+/**
+ * A read-only view of the pixels of an image, as packed ARGB ints (as in
+ * <code>Color.getRGB()</code>), handed to an <code>{@link ImageStencil ImageStencil}</code>
+ * so it can look at the neighbors of the pixel it's computing.
+ *
+ * <p>Reading a pixel is just an array lookup: the image isn't rendered or copied again.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public final class PixelView
+{
+    private final int[] pixels;
+    private final int width, height;
+
+    /**
+     * Constructor for a view of some pixels.
+     *
+     * @param pixels  the pixels, row by row from the top-left corner; not copied, so the
+     *                caller mustn't change them while the view is in use
+     * @param width   the width of the image
+     * @param height  the height of the image
+     */
+    PixelView (int[] pixels, int width, int height)
+    {
+        this.pixels = pixels;
+        this.width = width;
+        this.height = height;
+    }
+
+    public int getWidth ()
+    {
+        return this.width;
+    }
+
+    public int getHeight ()
+    {
+        return this.height;
+    }
+
+    /**
+     * Get the color of a pixel.
+     *
+     * @param x   the x coordinate
+     * @param y   the y coordinate
+     * @return the packed ARGB color of the pixel, or 0 (transparent) if it's outside the image
+     */
+    public int getARGB (int x, int y)
+    {
+        if (x < 0 || y < 0 || x >= this.width || y >= this.height)
+            return 0;
+        return this.pixels[y * this.width + x];
+    }
+
+    /**
+     * Get the color of a pixel, or of the nearest pixel on the edge of the image if the
+     * coordinates are outside it.  Handy for kernels that reach past the edge.
+     *
+     * @param x   the x coordinate
+     * @param y   the y coordinate
+     * @return the packed ARGB color of the pixel
+     */
+    public int getARGBClamped (int x, int y)
+    {
+        x = Math.max (0, Math.min (this.width - 1, x));
+        y = Math.max (0, Math.min (this.height - 1, y));
+        return this.pixels[y * this.width + x];
+    }
+}
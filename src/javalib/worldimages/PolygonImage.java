@@ -99,6 +99,8 @@ class PolygonImage extends ColoredImage{
       this.xcoord = xcoord;
       this.ycoord = ycoord;
       this.poly = new Polygon(xcoord, ycoord, xcoord.length);
+      
+      this.computeBounds();
     }
       
   public int getLeft ()
@@ -121,6 +123,16 @@ class PolygonImage extends ColoredImage{
       return this.bottom;
   }
  
+  /** Add the polygon to the display list. */
+  void compileInto(CompiledImage.Recorder list, java.awt.geom.AffineTransform transform){
+    list.addShape(this.poly, this.getColor(), this.getMode(), transform);
+  }
+  
+  /** The points the polygon covers: all of it if it's filled, just its edge if it's outlined. */
+  Shape getOutline(){
+    return outlineOf(this.poly, this.getMode());
+  }
+ 
   public void draw(Graphics2D g){
     // save the current paint
     Paint oldPaint = g.getPaint();
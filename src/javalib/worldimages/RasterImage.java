@@ -7,7 +7,11 @@ import java.awt.image.BufferedImage;
 import java.awt.image.WritableRaster;
 import java.awt.image.Raster;
 import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
 import java.awt.Color;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * An image stored explicitly in raster form.
@@ -17,7 +21,8 @@ import java.awt.Color;
  */
 public class RasterImage extends AImage
 {
-    protected BufferedImage rendering; // includes width and height
+    protected volatile BufferedImage rendering; // includes width and height; volatile so a
+    // rendering filled in later by one thread is seen, completely drawn, by the others
     // I don't like declaring this by its implementation type -- I would have preferred RenderedImage --
     // but in fact it IS always a BufferedImage, and I need to know that in order to compare two of them
     // because BufferedImage doesn't have a sensible equals() method.
@@ -82,6 +87,19 @@ public class RasterImage extends AImage
             ",\n" + newIndent + this.cornerString() + ")";
     }
     
+    /**
+     * A raster image covers the pixels that aren't completely transparent.
+     */
+    boolean containsPoint (double x, double y)
+    {
+        this.renderIfNecessary();
+        int px = (int)Math.floor (x);
+        int py = (int)Math.floor (y);
+        return px >= 0 && px < this.rendering.getWidth() &&
+               py >= 0 && py < this.rendering.getHeight() &&
+               (this.rendering.getRGB (px, py) >>> 24) != 0;
+    }
+    
     /**
      * If it's already a RasterImage, that's good enough.
      */
@@ -115,9 +133,9 @@ public class RasterImage extends AImage
         
     public int hashCode ()
     {
-        this.renderIfNecessary ();
-        
-        return super.hashCode() + this.rendering.hashCode();
+        // Images with the same pixels are equal, so the hash can only depend on
+        // what they have in common: the class and the size.
+        return super.hashCode() + rotate(this.getWidth(), 16) + this.getHeight();
     }
     
     public int getRight ()
@@ -146,74 +164,386 @@ public class RasterImage extends AImage
             return false;
         }
     }
-    private static void colorToIntArray (Color c, int[] components)
+
+    /**
+     * Convert an image (<em>e.g.</em> as it came from <code>ImageIO.read</code>, which may
+     * be indexed, 3-byte BGR, gray...) to TYPE_INT_ARGB, the type everything else in this
+     * package produces, so drawing it every frame doesn't need a color conversion and
+     * comparing or reading its pixels can take the fast path.
+     * 
+     * @param image   an image of any type, or null
+     * @return the same image if it's already TYPE_INT_ARGB (or null), otherwise a converted copy
+     */
+    static BufferedImage toARGB (BufferedImage image)
     {
-        components[0] = c.getRed();
-        components[1] = c.getGreen();
-        components[2] = c.getBlue();
-        components[3] = c.getAlpha();
+        if (image == null || image.getType() == BufferedImage.TYPE_INT_ARGB)
+            return image;
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage converted = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        // getRGB gives exactly the (non-premultiplied, sRGB) colors getPixelColor always gave
+        image.getRGB (0, 0, width, height, pixelArray (converted), 0, width);
+        return converted;
     }
 
-    private static Color intArrayToColor (int[] components)
+    /**
+     * The pixels of a TYPE_INT_ARGB image, as the packed ints its raster actually stores,
+     * row by row.  Writing into this array changes the image.
+     */
+    private static int[] pixelArray (BufferedImage argbImage)
     {
-        return new Color (components[0],
-                          components[1],
-                          components[2],
-                          components[3]);
+        return ((DataBufferInt)argbImage.getRaster().getDataBuffer()).getData();
     }
 
     public static WorldImage build (int width, int height, ImageBuilder b, Object extra)
     {
         BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
-        // see DirectColorModel, SinglePixelPackedSampleModel
-        WritableRaster raster = buffer.getRaster();
-    /*
-       Can probably ignore the following...
-       SampleModel sm = raster.getSampleModel();
-       DataBuffer db = raster.getDataBuffer();
-       int bands = raster.getNumBands(); // what is this?
-    */
-        int[] colorComponents = new int[4];
+        int[] pixels = pixelArray (buffer);
 
+        // Column by column, as the builder has always been called
         for (int col=0; col<width; ++col)
         {
             for (int row=0; row<height; ++row)
             {
-                Color c = b.pixelColor (col, row, extra);
-                colorToIntArray (c, colorComponents);
-                raster.setPixel (col, row, colorComponents);
+                pixels[row * width + col] = b.pixelColor (col, row, extra).getRGB();
             }
         }
         return new RasterImage (buffer);
     }
 
-    public WorldImage map (ImageMap b, Object extra)
+    /**
+     * Build an image pixel by pixel from packed ARGB colors, row by row, straight into
+     * the int array behind the image.
+     */
+    public static WorldImage buildARGB (int width, int height, IntImageBuilder b, Object extra)
+    {
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = pixelArray (buffer);
+
+        int ii = 0;
+        for (int row=0; row<height; ++row)
+        {
+            for (int col=0; col<width; ++col)
+            {
+                pixels[ii] = b.pixelARGB (col, row, extra);
+                ++ii;
+            }
+        }
+        return new RasterImage (buffer);
+    }
+
+    /**
+     * Something that computes one row of pixels of an image, independently of all the others.
+     */
+    private static interface RowFiller
+    {
+        void fillRow (int row);
+    }
+
+    /**
+     * A band of rows, filled in by splitting it in half until the halves are small, and
+     * filling in the halves in parallel on the common ForkJoin pool.
+     */
+    private static class Band extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+        
+        /** About how many pixels a band should have before it's worth splitting. */
+        private static final int PIXELS_PER_BAND = 16384;
+
+        private RowFiller filler;
+        private int top, bottom, width;
+
+        Band (RowFiller filler, int top, int bottom, int width)
+        {
+            this.filler = filler;
+            this.top = top;
+            this.bottom = bottom;
+            this.width = width;
+        }
+
+        protected void compute ()
+        {
+            if (this.bottom - this.top <= 1 ||
+                (long)(this.bottom - this.top) * this.width <= PIXELS_PER_BAND)
+            {
+                for (int row = this.top; row < this.bottom; ++row)
+                {
+                    this.filler.fillRow (row);
+                }
+            }
+            else
+            {
+                int middle = (this.top + this.bottom) >>> 1;
+                invokeAll (new Band (this.filler, this.top, middle, this.width),
+                           new Band (this.filler, middle, this.bottom, this.width));
+            }
+        }
+    }
+
+    /**
+     * Fill in all the rows of an image, in parallel.  Each row is written by exactly one
+     * thread and the pool waits for all of them, so no locking is needed, and the result
+     * is the same as filling in the rows one after another.
+     */
+    private static void fillRowsInParallel (RowFiller filler, int width, int height)
+    {
+        ForkJoinPool.commonPool().invoke (new Band (filler, 0, height, width));
+    }
+
+    /**
+     * Build an image pixel by pixel, like <code>build</code>, but computing many pixels
+     * at once on all available processors.  The builder must be stateless: it may be called
+     * for any pixels in any order, from several threads at once.
+     */
+    public static WorldImage buildParallel (final int width, int height,
+                                            final ImageBuilder b, final Object extra)
+    {
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = pixelArray (buffer);
+
+        fillRowsInParallel (new RowFiller () {
+            public void fillRow (int row)
+            {
+                for (int col=0; col<width; ++col)
+                {
+                    pixels[row * width + col] = b.pixelColor (col, row, extra).getRGB();
+                }
+            }
+        }, width, height);
+        return new RasterImage (buffer);
+    }
+
+    /**
+     * Build an image from packed ARGB colors, like <code>buildARGB</code>, but computing
+     * many pixels at once on all available processors.  The builder must be stateless.
+     */
+    public static WorldImage buildARGBParallel (final int width, int height,
+                                                final IntImageBuilder b, final Object extra)
+    {
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = pixelArray (buffer);
+
+        fillRowsInParallel (new RowFiller () {
+            public void fillRow (int row)
+            {
+                for (int col=0; col<width; ++col)
+                {
+                    pixels[row * width + col] = b.pixelARGB (col, row, extra);
+                }
+            }
+        }, width, height);
+        return new RasterImage (buffer);
+    }
+
+    public WorldImage mapParallel (final ImageMap b, final Object extra)
+    {
+        final int width = this.getWidth();
+        int height = this.getHeight();
+
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = pixelArray (buffer);
+        this.getPixels (0, 0, width, height, pixels);
+
+        fillRowsInParallel (new RowFiller () {
+            public void fillRow (int row)
+            {
+                for (int col=0; col<width; ++col)
+                {
+                    int ii = row * width + col;
+                    pixels[ii] = b.pixelColor (col, row, new Color (pixels[ii], true), extra).getRGB();
+                }
+            }
+        }, width, height);
+        return new RasterImage (buffer);
+    }
+
+    public WorldImage mapARGBParallel (final IntImageMap b, final Object extra)
+    {
+        final int width = this.getWidth();
+        int height = this.getHeight();
+
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        final int[] pixels = pixelArray (buffer);
+        this.getPixels (0, 0, width, height, pixels);
+
+        fillRowsInParallel (new RowFiller () {
+            public void fillRow (int row)
+            {
+                for (int col=0; col<width; ++col)
+                {
+                    int ii = row * width + col;
+                    pixels[ii] = b.pixelARGB (col, row, pixels[ii], extra);
+                }
+            }
+        }, width, height);
+        return new RasterImage (buffer);
+    }
+
+    public WorldImage mapWithNeighbors (ImageStencil b, Object extra)
     {
         int width = this.getWidth();
         int height = this.getHeight();
+        PixelView source = new PixelView (this.getPixels (0, 0, width, height, null), width, height);
 
-        Raster srcRaster = this.rendering.getData();
-        boolean hasAlpha = this.rendering.getColorModel().hasAlpha();
-                           // (srcRaster.getNumBands()==4);
-        
         BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
-        WritableRaster dstRaster = buffer.getRaster();
-        
+        int[] pixels = pixelArray (buffer);
 
-        int[] colorComponents = new int[4];
-        
-        if (! hasAlpha) colorComponents[3] = 255;
+        int ii = 0;
+        for (int row = 0; row<height; ++row)
+        {
+            for (int col = 0; col<width; ++col)
+            {
+                pixels[ii] = b.pixelARGB (col, row, source, extra);
+                ++ii;
+            }
+        }
+        return new RasterImage (buffer);
+    }
+
+    /**
+     * Convolve with a separable kernel: first each row with the horizontal kernel, then
+     * each column with the vertical one.  Colors are premultiplied by alpha while they're
+     * being mixed, so transparent pixels don't darken their neighbors, and pixels past
+     * the edges are taken to be copies of the nearest edge pixel.
+     */
+    public WorldImage convolved (double[] horizontal, double[] vertical)
+    {
+        if (horizontal.length % 2 == 0 || vertical.length % 2 == 0)
+            throw new IllegalArgumentException ("convolution kernels must have odd lengths, not " +
+                                                horizontal.length + " and " + vertical.length);
+        int width = this.getWidth();
+        int height = this.getHeight();
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        if (width == 0 || height == 0)
+            return new RasterImage (buffer);
+        int[] pixels = pixelArray (buffer);
+        this.getPixels (0, 0, width, height, pixels);
+
+        // four premultiplied channels per pixel: alpha, red, green, blue
+        float[] unpacked = new float[4 * width * height];
+        for (int ii = 0; ii < pixels.length; ++ii)
+        {
+            int argb = pixels[ii];
+            float alpha = (argb >>> 24) / 255f;
+            unpacked[4*ii] = argb >>> 24;
+            unpacked[4*ii+1] = ((argb >> 16) & 0xFF) * alpha;
+            unpacked[4*ii+2] = ((argb >> 8) & 0xFF) * alpha;
+            unpacked[4*ii+3] = (argb & 0xFF) * alpha;
+        }
+
+        float[] across = new float[unpacked.length];
+        convolveLines (unpacked, across, horizontal, height, width, 4 * width, 4);
+        float[] down = unpacked; // no longer needed, so reuse it
+        convolveLines (across, down, vertical, width, height, 4, 4 * width);
+
+        for (int ii = 0; ii < pixels.length; ++ii)
+        {
+            int alpha = clampChannel (down[4*ii]);
+            if (alpha == 0)
+            {
+                pixels[ii] = 0;
+            }
+            else
+            {
+                float unmultiply = 255f / alpha;
+                pixels[ii] = (alpha << 24) |
+                             (clampChannel (down[4*ii+1] * unmultiply) << 16) |
+                             (clampChannel (down[4*ii+2] * unmultiply) << 8) |
+                             clampChannel (down[4*ii+3] * unmultiply);
+            }
+        }
+        return new RasterImage (buffer);
+    }
+
+    /**
+     * Convolve every line (row or column) of four-channel pixels with a kernel centered on
+     * each pixel, clamping at the ends of the line.
+     *
+     * @param src         the pixels to read
+     * @param dst         the pixels to write
+     * @param kernel      the weights, of odd length
+     * @param lines       how many lines there are
+     * @param length      how many pixels long each line is
+     * @param lineStep    how far apart in the arrays the starts of successive lines are
+     * @param pixelStep   how far apart in the arrays successive pixels of a line are
+     */
+    private static void convolveLines (float[] src, float[] dst, double[] kernel,
+                                       int lines, int length, int lineStep, int pixelStep)
+    {
+        int radius = kernel.length / 2;
+        for (int line = 0; line < lines; ++line)
+        {
+            int start = line * lineStep;
+            for (int ii = 0; ii < length; ++ii)
+            {
+                float a = 0, r = 0, g = 0, b = 0;
+                for (int kk = 0; kk < kernel.length; ++kk)
+                {
+                    int jj = Math.max (0, Math.min (length - 1, ii + kk - radius));
+                    int from = start + jj * pixelStep;
+                    float weight = (float)kernel[kk];
+                    a += weight * src[from];
+                    r += weight * src[from+1];
+                    g += weight * src[from+2];
+                    b += weight * src[from+3];
+                }
+                int to = start + ii * pixelStep;
+                dst[to] = a;
+                dst[to+1] = r;
+                dst[to+2] = g;
+                dst[to+3] = b;
+            }
+        }
+    }
+
+    private static int clampChannel (float value)
+    {
+        return Math.max (0, Math.min (255, Math.round (value)));
+    }
+
+    public WorldImage map (ImageMap b, Object extra)
+    {
+        int width = this.getWidth();
+        int height = this.getHeight();
+
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = pixelArray (buffer);
+        // start with the old colors (alpha 255 if the rendering has none), then replace them
+        this.getPixels (0, 0, width, height, pixels);
     
         for (int col = 0; col<width; ++col)
         {
             for (int row = 0; row<height; ++row)
             {
-                srcRaster.getPixel (col, row, colorComponents);
-                // if (! hasAlpha), this won't touch colorComponents[3] so it's still 255
-                Color srcColor = intArrayToColor (colorComponents);
-                Color dstColor = b.pixelColor (col, row, srcColor, extra);
-                colorToIntArray (dstColor, colorComponents);
-                dstRaster.setPixel (col, row, colorComponents);
+                int ii = row * width + col;
+                Color dstColor = b.pixelColor (col, row, new Color (pixels[ii], true), extra);
+                pixels[ii] = dstColor.getRGB();
+            }
+        }
+        return new RasterImage (buffer);
+    }
+
+    /**
+     * Map packed ARGB colors to packed ARGB colors, row by row, straight into the int
+     * array behind the new image.
+     */
+    public WorldImage mapARGB (IntImageMap b, Object extra)
+    {
+        int width = this.getWidth();
+        int height = this.getHeight();
+
+        BufferedImage buffer = new BufferedImage (width, height, BufferedImage.TYPE_INT_ARGB);
+        int[] pixels = pixelArray (buffer);
+        this.getPixels (0, 0, width, height, pixels);
+    
+        int ii = 0;
+        for (int row = 0; row<height; ++row)
+        {
+            for (int col = 0; col<width; ++col)
+            {
+                pixels[ii] = b.pixelARGB (col, row, pixels[ii], extra);
+                ++ii;
             }
         }
         return new RasterImage (buffer);
@@ -228,11 +558,44 @@ public class RasterImage extends AImage
         if (x < 0 || y < 0 || x >= width || y >= height)
             return transparent;
         
-        Raster srcRaster = this.rendering.getData();
-        boolean hasAlpha = this.rendering.getColorModel().hasAlpha();
-        int[] colorComponents = new int[4];
-        if (! hasAlpha) colorComponents[3] = 255;
-        srcRaster.getPixel (x, y, colorComponents);
-        return intArrayToColor (colorComponents);
+        // getRGB reads just the one pixel, rather than copying the whole raster as getData() would.
+        return new Color (this.rendering.getRGB (x, y), true);
+    }
+
+    public int[] getPixels (int x, int y, int width, int height, int[] pixels)
+    {
+        this.renderIfNecessary();
+        if (pixels == null)
+            pixels = new int[width * height];
+        else if (pixels.length < width * height)
+            throw new IllegalArgumentException ("getPixels needs an array of at least " +
+                                                width * height + " ints, not " + pixels.length);
+        Arrays.fill (pixels, 0, width * height, 0);
+        
+        // the part of the requested rectangle that's actually inside the image
+        int left = Math.max (x, 0);
+        int top = Math.max (y, 0);
+        int right = Math.min (x + width, this.rendering.getWidth());
+        int bottom = Math.min (y + height, this.rendering.getHeight());
+        if (left >= right || top >= bottom)
+            return pixels;
+        
+        if (this.rendering.getType() == BufferedImage.TYPE_INT_ARGB)
+        {
+            // the raster's data elements are already packed ARGB ints, so copy them a row at a time
+            WritableRaster raster = this.rendering.getRaster();
+            int[] row = new int[right - left];
+            for (int yy = top; yy < bottom; ++yy)
+            {
+                raster.getDataElements (left, yy, right - left, 1, row);
+                System.arraycopy (row, 0, pixels, (yy - y) * width + (left - x), right - left);
+            }
+        }
+        else
+        {
+            this.rendering.getRGB (left, top, right - left, bottom - top,
+                                   pixels, (top - y) * width + (left - x), width);
+        }
+        return pixels;
     }
 }
@@ -13,6 +13,9 @@ import java.awt.geom.*;
  */
 class RectangleImage extends RectangularImage
 {    
+    /** the shape, made once since the image never changes; it mustn't be modified */
+    private final Rectangle2D rect;
+    
     /**
      * The full constructor for a RectangleImage.
      * 
@@ -22,6 +25,7 @@ class RectangleImage extends RectangularImage
      */
     protected RectangleImage (int width, int height, Color color, Mode mode) {
         super (width, height, color, mode);
+        this.rect = new Rectangle2D.Double(this.getLeft(), this.getTop(), width, height);
     }
     
     /**
@@ -112,6 +116,19 @@ class RectangleImage extends RectangularImage
     }
 
                                 
+  /** Add the rectangle to the display list, unless it's empty. */
+  void compileInto(CompiledImage.Recorder list, AffineTransform transform){
+    if (this.getWidth() > 0 && this.getHeight() > 0)
+      list.addShape(this.rect, this.getColor(), this.getMode(), transform);
+  }
+  
+  /** The points the rectangle covers: all of it if it's filled, just its edge if it's outlined. */
+  Shape getOutline(){
+    if (this.getWidth() <= 0 || this.getHeight() <= 0)
+      return new Rectangle2D.Double();
+    return outlineOf(this.rect, this.getMode());
+  }
+  
   /** 
    * Draw this image in the provided <code>Graphics2D</code> context.
    * 
@@ -128,16 +145,13 @@ class RectangleImage extends RectangularImage
     // set the paint to the given color
     g.setPaint(this.getColor());  
     // draw the object
-    
-    Rectangle2D rect = new Rectangle2D.Double(this.getLeft(), this.getTop(),
-                                              this.getWidth(), this.getHeight());
     if (this.getMode() == Mode.FILLED)
     {
-        g.fill(rect);
+        g.fill(this.rect);
     }
     else if (this.getMode() == Mode.OUTLINED)
     {
-        g.draw(rect);
+        g.draw(this.rect);
     }
     // reset the original paint
     g.setPaint(oldPaint);   
@@ -0,0 +1,375 @@
+package javalib.worldimages;
+
+import java.awt.Graphics2D;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.geom.Point2D;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A spatial index over the leaves of a scene: the images that aren't overlays or
+ * transforms of other images, each with the transform that puts it where it is in
+ * the scene.  It's a bounding-volume hierarchy, so finding the leaves at a point
+ * or in a rectangle only looks at about log(n) of them, however big the scene is.
+ *
+ * <p>Get one from <code>{@link WorldImage#getSceneIndex() getSceneIndex}</code>, which
+ * builds it the first time it's asked for and keeps it, so a scene (<em>e.g.</em> a big
+ * map) that's kept from one tick to the next is only indexed once.</p>
+ *
+ * <p>Leaves are numbered in drawing order, from 0 at the back, and queries return
+ * them in that order.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public final class SceneIndex
+{
+    /** The most leaves in one node of the hierarchy before it's split. */
+    private static final int NODE_SIZE = 4;
+
+    private final WorldImage[] leaves;
+    private final AffineTransform[] transforms; // null where there's no transform
+    private final double[] boxes; // left, top, right, bottom of each leaf in the scene
+    private final int[] order; // the leaves, grouped by node
+    private final Node root;
+
+    /**
+     * A node of the hierarchy: a box around some leaves, and either two smaller nodes
+     * or (at the bottom) a range of <code>order</code>.
+     */
+    private static final class Node
+    {
+        double left, top, right, bottom;
+        Node first, second;
+        int start, end;
+    }
+
+    /**
+     * Constructor for an index of a scene.
+     *
+     * @param scene   the image to index
+     */
+    SceneIndex (WorldImage scene)
+    {
+        ArrayList<WorldImage> leafList = new ArrayList<WorldImage> ();
+        ArrayList<AffineTransform> transformList = new ArrayList<AffineTransform> ();
+        collect (scene, null, leafList, transformList);
+
+        int count = leafList.size();
+        this.leaves = leafList.toArray (new WorldImage[count]);
+        this.transforms = transformList.toArray (new AffineTransform[count]);
+        this.boxes = new double[4 * count];
+        this.order = new int[count];
+        double[] centers = new double[2 * count];
+        for (int ii = 0; ii < count; ++ii)
+        {
+            this.setBox (ii);
+            centers[2 * ii] = (this.boxes[4 * ii] + this.boxes[4 * ii + 2]) / 2;
+            centers[2 * ii + 1] = (this.boxes[4 * ii + 1] + this.boxes[4 * ii + 3]) / 2;
+            this.order[ii] = ii;
+        }
+        this.root = this.build (0, count, centers);
+    }
+
+    /**
+     * Take a scene apart into its leaves, multiplying together the transforms on the way down.
+     */
+    private static void collect (WorldImage image, AffineTransform transform,
+                                 ArrayList<WorldImage> leafList,
+                                 ArrayList<AffineTransform> transformList)
+    {
+        if (image instanceof OverlayImage)
+        {
+            OverlayImage overlay = (OverlayImage)image;
+            for (int ii = 0; ii < overlay.getImageCount(); ++ii)
+                collect (overlay.getImage (ii), transform, leafList, transformList);
+        }
+        else if (image instanceof LinearImage)
+        {
+            LinearImage linear = (LinearImage)image;
+            AffineTransform inner = linear.getTransform();
+            if (transform != null)
+                inner.preConcatenate (transform);
+            collect (linear.getBase(), inner, leafList, transformList);
+        }
+        else
+        {
+            leafList.add (image);
+            transformList.add (transform);
+        }
+    }
+
+    /**
+     * Work out where a leaf's bounding box ends up in the scene.  It's widened by a pixel
+     * first, since outlines are drawn a little outside the bounding boxes of their shapes.
+     */
+    private void setBox (int leaf)
+    {
+        WorldImage image = this.leaves[leaf];
+        double left = image.getLeft() - 1, top = image.getTop() - 1;
+        double right = image.getRight() + 1, bottom = image.getBottom() + 1;
+        AffineTransform transform = this.transforms[leaf];
+        if (transform != null)
+        {
+            double[] corners = { left, top, right, top, left, bottom, right, bottom };
+            transform.transform (corners, 0, corners, 0, 4);
+            left = Math.min (Math.min (corners[0], corners[2]), Math.min (corners[4], corners[6]));
+            right = Math.max (Math.max (corners[0], corners[2]), Math.max (corners[4], corners[6]));
+            top = Math.min (Math.min (corners[1], corners[3]), Math.min (corners[5], corners[7]));
+            bottom = Math.max (Math.max (corners[1], corners[3]), Math.max (corners[5], corners[7]));
+        }
+        this.boxes[4 * leaf] = left;
+        this.boxes[4 * leaf + 1] = top;
+        this.boxes[4 * leaf + 2] = right;
+        this.boxes[4 * leaf + 3] = bottom;
+    }
+
+    /**
+     * Build the hierarchy over a range of <code>order</code>, splitting it in half by the
+     * centers of the leaves along whichever way the range is wider.
+     */
+    private Node build (int start, int end, double[] centers)
+    {
+        Node node = new Node ();
+        node.left = node.top = Double.POSITIVE_INFINITY;
+        node.right = node.bottom = Double.NEGATIVE_INFINITY;
+        for (int ii = start; ii < end; ++ii)
+        {
+            int leaf = this.order[ii];
+            node.left = Math.min (node.left, this.boxes[4 * leaf]);
+            node.top = Math.min (node.top, this.boxes[4 * leaf + 1]);
+            node.right = Math.max (node.right, this.boxes[4 * leaf + 2]);
+            node.bottom = Math.max (node.bottom, this.boxes[4 * leaf + 3]);
+        }
+
+        if (end - start <= NODE_SIZE)
+        {
+            node.start = start;
+            node.end = end;
+        }
+        else
+        {
+            int axis = (node.right - node.left >= node.bottom - node.top) ? 0 : 1;
+            int middle = (start + end) / 2;
+            this.select (start, end, middle, axis, centers);
+            node.first = this.build (start, middle, centers);
+            node.second = this.build (middle, end, centers);
+        }
+        return node;
+    }
+
+    /**
+     * Rearrange a range of <code>order</code> so the leaf at <code>nth</code> is where
+     * it would be if the range were sorted by center, with smaller ones before it and
+     * bigger ones after.
+     */
+    private void select (int start, int end, int nth, int axis, double[] centers)
+    {
+        int[] order = this.order;
+        while (end - start > 1)
+        {
+            double pivot = centers[2 * order[(start + end) >>> 1] + axis];
+            int lo = start, hi = end - 1;
+            while (lo <= hi)
+            {
+                while (centers[2 * order[lo] + axis] < pivot)
+                    ++lo;
+                while (centers[2 * order[hi] + axis] > pivot)
+                    --hi;
+                if (lo <= hi)
+                {
+                    int temp = order[lo];
+                    order[lo] = order[hi];
+                    order[hi] = temp;
+                    ++lo;
+                    --hi;
+                }
+            }
+            if (nth <= hi)
+                end = hi + 1;
+            else if (nth >= lo)
+                start = lo;
+            else
+                return;
+        }
+    }
+
+    /**
+     * How many leaves does the scene have?
+     *
+     * @return the number of leaves
+     */
+    public int size ()
+    {
+        return this.leaves.length;
+    }
+
+    /**
+     * Get one of the leaves, where it is in the scene.
+     *
+     * @param index   which leaf, counting from 0 at the back
+     * @return the leaf, with whatever transform puts it in its place
+     */
+    public WorldImage getLeaf (int index)
+    {
+        if (this.transforms[index] == null)
+            return this.leaves[index];
+        else
+            return LinearImage.make (this.transforms[index], this.leaves[index]);
+    }
+
+    /**
+     * Which leaves cover a point?  Uses the shapes of the leaves, as
+     * <code>{@link WorldImage#contains(Posn) contains}</code> does.
+     *
+     * @param p   the point, in the scene's coordinates
+     * @return the numbers of the leaves that cover it, from back to front
+     */
+    public int[] leavesAt (Posn p)
+    {
+        IntList found = new IntList ();
+        this.findAt (this.root, p.getX(), p.getY(), found);
+        return found.sorted ();
+    }
+
+    /**
+     * Which leaf is in front at a point?  That's usually the one a mouse click was aimed at.
+     *
+     * @param p   the point, in the scene's coordinates
+     * @return the front-most leaf that covers the point, where it is in the scene,
+     *         or null if none of them do
+     */
+    public WorldImage topLeafAt (Posn p)
+    {
+        int[] found = this.leavesAt (p);
+        if (found.length == 0)
+            return null;
+        else
+            return this.getLeaf (found[found.length - 1]);
+    }
+
+    /**
+     * Which leaves might show in a rectangle?  This goes only by bounding boxes, so it may
+     * include a few leaves that come near the rectangle without actually showing in it.
+     *
+     * @param left     the left edge of the rectangle
+     * @param top      the top edge
+     * @param right    the right edge
+     * @param bottom   the bottom edge
+     * @return the numbers of the leaves whose bounding boxes meet the rectangle, from back to front
+     */
+    public int[] leavesIn (int left, int top, int right, int bottom)
+    {
+        IntList found = new IntList ();
+        this.findIn (this.root, left, top, right, bottom, found);
+        return found.sorted ();
+    }
+
+    /**
+     * Draw only the leaves that might show in a rectangle, in the right order, and count
+     * the others as culled.
+     *
+     * @param g    where to draw them
+     * @param left, top, right, bottom   the rectangle, in the scene's coordinates
+     */
+    void draw (Graphics2D g, int left, int top, int right, int bottom)
+    {
+        int[] showing = this.leavesIn (left, top, right, bottom);
+        AImage.countCulled (this.leaves.length - showing.length);
+        for (int leaf : showing)
+        {
+            AffineTransform transform = this.transforms[leaf];
+            if (transform == null)
+            {
+                this.leaves[leaf].draw (g);
+            }
+            else
+            {
+                AffineTransform oldTransform = g.getTransform();
+                g.transform (transform);
+                this.leaves[leaf].draw (g);
+                g.setTransform (oldTransform);
+            }
+        }
+    }
+
+    private void findAt (Node node, double x, double y, IntList found)
+    {
+        if (x < node.left || x > node.right || y < node.top || y > node.bottom)
+            return;
+        if (node.first != null)
+        {
+            this.findAt (node.first, x, y, found);
+            this.findAt (node.second, x, y, found);
+            return;
+        }
+        for (int ii = node.start; ii < node.end; ++ii)
+        {
+            int leaf = this.order[ii];
+            if (x < this.boxes[4 * leaf] || x > this.boxes[4 * leaf + 2] ||
+                y < this.boxes[4 * leaf + 1] || y > this.boxes[4 * leaf + 3])
+                continue;
+            Point2D point = new Point2D.Double (x, y);
+            AffineTransform transform = this.transforms[leaf];
+            if (transform != null)
+            {
+                try
+                {
+                    transform.inverseTransform (point, point);
+                }
+                catch (NoninvertibleTransformException e)
+                {
+                    continue; // squashed flat, so it covers no area
+                }
+            }
+            WorldImage image = this.leaves[leaf];
+            if (AImage.boxContains (image, point.getX(), point.getY()) &&
+                ((AImage)image).containsPoint (point.getX(), point.getY()))
+                found.add (leaf);
+        }
+    }
+
+    private void findIn (Node node, double left, double top, double right, double bottom,
+                         IntList found)
+    {
+        if (right < node.left || left > node.right || bottom < node.top || top > node.bottom)
+            return;
+        if (node.first != null)
+        {
+            this.findIn (node.first, left, top, right, bottom, found);
+            this.findIn (node.second, left, top, right, bottom, found);
+            return;
+        }
+        for (int ii = node.start; ii < node.end; ++ii)
+        {
+            int leaf = this.order[ii];
+            if (right >= this.boxes[4 * leaf] && left <= this.boxes[4 * leaf + 2] &&
+                bottom >= this.boxes[4 * leaf + 1] && top <= this.boxes[4 * leaf + 3])
+                found.add (leaf);
+        }
+    }
+
+    /**
+     * A growable list of ints, so queries don't box every leaf number they find.
+     */
+    private static final class IntList
+    {
+        private int[] items = new int[8];
+        private int size = 0;
+
+        void add (int item)
+        {
+            if (this.size == this.items.length)
+                this.items = Arrays.copyOf (this.items, 2 * this.size);
+            this.items[this.size] = item;
+            ++this.size;
+        }
+
+        int[] sorted ()
+        {
+            int[] result = Arrays.copyOf (this.items, this.size);
+            Arrays.sort (result);
+            return result;
+        }
+    }
+}
@@ -65,6 +65,284 @@ public class TestAImage extends junit.framework.TestCase
         // That one doesn't quite work.
     }
     
+    public void testSubimages (Tester t)
+    {
+        // Two sub-images of one buffer share its array, at different offsets.
+        java.awt.image.BufferedImage buffer =
+            new java.awt.image.BufferedImage (20, 10, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        java.awt.Graphics2D g = buffer.createGraphics();
+        g.setColor (Color.red);
+        g.fillRect (10, 0, 10, 10);
+        g.dispose();
+        WorldImage left = RasterImage.make (buffer.getSubimage (0, 0, 10, 10));
+        WorldImage right = RasterImage.make (buffer.getSubimage (10, 0, 10, 10));
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (left, right), false);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (right, left), false);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (right,
+                           RasterImage.make (buffer.getSubimage (10, 0, 10, 10))), true);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (right,
+                           AImage.makeRectangle (10, 10, Color.red, Mode.FILLED)), true);
+    }
+    
+    /**
+     * A loader that counts how many times it's run, and can be told to fail or to wait a while.
+     */
+    private static class CountingLoader implements LoadedImages.Loader
+    {
+        final java.util.concurrent.atomic.AtomicInteger loads =
+            new java.util.concurrent.atomic.AtomicInteger ();
+        int failures = 0; // how many of the first loads throw
+        long delay = 0;   // how long each load takes, in milliseconds
+        
+        public java.awt.image.BufferedImage load () throws java.io.IOException
+        {
+            int count = this.loads.incrementAndGet();
+            try
+            {
+                Thread.sleep (this.delay);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+            if (count <= this.failures)
+                throw new java.io.IOException ("load " + count + " failed on purpose");
+            return new java.awt.image.BufferedImage (10, 10, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        }
+    }
+    
+    /**
+     * Get an image from the table, or null if it couldn't be loaded.
+     */
+    private static java.awt.image.BufferedImage load (String key, LoadedImages.Loader loader)
+    {
+        try
+        {
+            return LoadedImages.get (key, loader);
+        }
+        catch (java.io.IOException e)
+        {
+            return null;
+        }
+    }
+    
+    public void testLoadedImagesOnce (Tester t)
+    {
+        final String key = "test:concurrent:" + System.nanoTime();
+        final CountingLoader loader = new CountingLoader ();
+        loader.delay = 100;
+        final java.awt.image.BufferedImage[] results = new java.awt.image.BufferedImage[8];
+        Thread[] threads = new Thread[results.length];
+        for (int ii = 0; ii < threads.length; ++ii)
+        {
+            final int which = ii;
+            threads[ii] = new Thread (new Runnable() {
+                public void run ()
+                {
+                    results[which] = load (key, loader);
+                }
+            });
+            threads[ii].start();
+        }
+        for (Thread thread : threads)
+        {
+            try
+            {
+                thread.join();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+        t.checkExpect (loader.loads.get(), 1, "concurrent gets of one key load it once");
+        boolean allSame = results[0] != null;
+        for (java.awt.image.BufferedImage result : results)
+            allSame = allSame && result == results[0];
+        t.checkExpect (allSame, true, "they all get the same image");
+    }
+    
+    public void testLoadedImagesEviction (Tester t)
+    {
+        long oldMax = LoadedImages.getMaxBytes();
+        String prefix = "test:lru:" + System.nanoTime() + ":";
+        CountingLoader a = new CountingLoader (), b = new CountingLoader (), c = new CountingLoader ();
+        try
+        {
+            LoadedImages.clear();
+            LoadedImages.setMaxBytes (1000); // room for two 10x10 ARGB images, not three
+            long hits = LoadedImages.getHits();
+            long misses = LoadedImages.getMisses();
+            long evictions = LoadedImages.getEvictions();
+            
+            load (prefix + "a", a);
+            load (prefix + "b", b);
+            t.checkExpect (LoadedImages.size(), 2);
+            t.checkExpect (LoadedImages.getBytes(), 800L);
+            load (prefix + "a", a); // a is now more recently used than b
+            load (prefix + "c", c); // so b is the one dropped
+            t.checkExpect (LoadedImages.size(), 2);
+            t.checkExpect (LoadedImages.getHits() - hits, 1L);
+            t.checkExpect (LoadedImages.getMisses() - misses, 3L);
+            t.checkExpect (LoadedImages.getEvictions() - evictions, 1L);
+            
+            load (prefix + "a", a);
+            load (prefix + "b", b);
+            t.checkExpect (a.loads.get(), 1, "a stayed in the table");
+            t.checkExpect (b.loads.get(), 2, "b was dropped, so it's loaded again");
+            t.checkExpect (LoadedImages.getHits() - hits, 2L);
+            t.checkExpect (LoadedImages.getMisses() - misses, 4L);
+            t.checkExpect (LoadedImages.getEvictions() - evictions, 2L);
+        }
+        finally
+        {
+            LoadedImages.setMaxBytes (oldMax);
+            LoadedImages.clear();
+        }
+    }
+    
+    public void testLoadedImagesFailure (Tester t)
+    {
+        String key = "test:failure:" + System.nanoTime();
+        CountingLoader loader = new CountingLoader ();
+        loader.failures = 1;
+        t.checkExpect (load (key, loader) == null, true, "the first load fails");
+        t.checkExpect (load (key, loader) == null, false, "trying again loads it again");
+        t.checkExpect (loader.loads.get(), 2);
+        t.checkExpect (load (key, loader) == null, false);
+        t.checkExpect (loader.loads.get(), 2, "and after that it's in the table");
+    }
+    
+    // A pattern with every channel (including alpha) varying, as Colors and as ARGB ints.
+    private static final ImageBuilder pattern = new ImageBuilder() {
+        public Color pixelColor (int x, int y, Object extra)
+        {
+            return new Color ((x * 7) % 256, (y * 3) % 256, (x ^ y) % 256, 128 + (x + y) % 128);
+        }
+    };
+    private static final IntImageBuilder argbPattern = new IntImageBuilder() {
+        public int pixelARGB (int x, int y, Object extra)
+        {
+            return (128 + (x + y) % 128) << 24 | ((x * 7) % 256) << 16 |
+                   ((y * 3) % 256) << 8 | (x ^ y) % 256;
+        }
+    };
+    private static final ImageMap invert = new ImageMap() {
+        public Color pixelColor (int x, int y, Color old, Object extra)
+        {
+            return new Color (255 - old.getRed(), 255 - old.getGreen(), 255 - old.getBlue(),
+                              old.getAlpha());
+        }
+    };
+    private static final IntImageMap argbInvert = new IntImageMap() {
+        public int pixelARGB (int x, int y, int old, Object extra)
+        {
+            return (old & 0xFF000000) | (~old & 0x00FFFFFF);
+        }
+    };
+    
+    public void testARGB (Tester t)
+    {
+        WorldImage built = AImage.build (40, 30, pattern, null);
+        t.checkExpect (AImage.buildARGB (40, 30, argbPattern, null), built);
+        t.checkExpect (built.mapARGB (argbInvert, null), built.map (invert, null));
+        t.checkExpect (redRect.mapARGB (argbInvert), redRect.map (invert));
+        t.checkExpect (((RasterImage)built).getPixelColor (5, 7), pattern.pixelColor (5, 7, null));
+    }
+    
+    public void testParallel (Tester t)
+    {
+        // tall enough to be split into several bands
+        WorldImage built = AImage.build (200, 300, pattern, null);
+        t.checkExpect (AImage.buildParallel (200, 300, pattern, null), built);
+        t.checkExpect (AImage.buildARGBParallel (200, 300, argbPattern, null),
+                       AImage.buildARGB (200, 300, argbPattern, null));
+        t.checkExpect (built.mapParallel (invert, null), built.map (invert, null));
+        t.checkExpect (built.mapARGBParallel (argbInvert, null), built.mapARGB (argbInvert, null));
+        t.checkFail (built.map (invert, null), built);
+    }
+    
+    /**
+     * Write a small image to a new temporary file, or return null if it couldn't be.
+     */
+    private static String tempImageFile (java.awt.image.BufferedImage image, String format)
+    {
+        try
+        {
+            java.io.File file = java.io.File.createTempFile ("TestAImage", "." + format);
+            file.deleteOnExit();
+            javax.imageio.ImageIO.write (image, format, file);
+            return file.getPath();
+        }
+        catch (java.io.IOException e)
+        {
+            return null;
+        }
+    }
+    
+    public void testPreload (Tester t)
+    {
+        boolean failed = false;
+        try
+        {
+            AImage.preload ("no such file.png").get();
+        }
+        catch (java.util.concurrent.ExecutionException e)
+        {
+            failed = e.getCause() instanceof java.io.IOException;
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+        }
+        t.checkExpect (failed, true, "preloading a missing file fails");
+        
+        java.awt.image.BufferedImage picture =
+            new java.awt.image.BufferedImage (6, 4, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        picture.setRGB (2, 1, 0xFF00FF00);
+        String fileName = tempImageFile (picture, "png");
+        boolean loaded = false;
+        try
+        {
+            AImage.preload (fileName).get();
+            loaded = true;
+        }
+        catch (Exception e)
+        {
+            // leave loaded false
+        }
+        t.checkExpect (loaded, true, "preloading an existing file works");
+        long hits = LoadedImages.getHits();
+        long misses = LoadedImages.getMisses();
+        WorldImage image = AImage.makeFromFile (fileName);
+        t.checkExpect (LoadedImages.getMisses() - misses, 0L, "makeFromFile doesn't load it again");
+        t.checkExpect (LoadedImages.getHits() - hits, 1L, "it finds the preloaded image");
+        t.checkExpect (image.getWidth(), 6);
+        t.checkExpect (((RasterImage)image).getPixelColor (2, 1), Color.green);
+    }
+    
+    public void testLoadedAsARGB (Tester t)
+    {
+        // ImageIO reads these back as TYPE_3BYTE_BGR and TYPE_BYTE_INDEXED images (and
+        // its GIF writer mangles images much smaller than this)
+        java.awt.image.BufferedImage picture =
+            new java.awt.image.BufferedImage (16, 16, java.awt.image.BufferedImage.TYPE_3BYTE_BGR);
+        picture.setRGB (2, 1, 0xFFFF0000);
+        java.awt.image.BufferedImage indexed =
+            new java.awt.image.BufferedImage (16, 16, java.awt.image.BufferedImage.TYPE_BYTE_INDEXED);
+        indexed.setRGB (2, 1, 0xFFFF0000);
+        for (String format : new String[] { "png", "gif" })
+        {
+            WorldImage image = AImage.makeFromFile (
+                tempImageFile (format.equals ("gif") ? indexed : picture, format));
+            t.checkExpect (((RasterImage)image).rendering.getType(),
+                           java.awt.image.BufferedImage.TYPE_INT_ARGB, format);
+            t.checkExpect (((RasterImage)image).getPixelColor (2, 1), Color.red, format);
+            t.checkExpect (((RasterImage)image).getPixelColor (0, 0), Color.black, format);
+        }
+        t.checkExpect (RasterImage.toARGB (picture).getRGB (2, 1), 0xFFFF0000);
+    }
+    
     public void testGetPixelColor (Tester t)
     {
         WorldImage rect = AImage.makeRectangle (5, 3, Color.yellow, Mode.FILLED);
@@ -82,4 +360,403 @@ public class TestAImage extends junit.framework.TestCase
         t.checkExpect (circ.getPixelColor(1,9), transparent);
         t.checkExpect (circ.getPixelColor(2,8), Color.blue);
     }
+    
+    public void testGetPixels (Tester t)
+    {
+        WorldImage rect = AImage.makeRectangle (5, 3, Color.yellow, Mode.FILLED);
+        int[] pixels = rect.getPixels (-1, 1, 7, 2, null);
+        t.checkExpect (pixels.length, 14);
+        t.checkExpect (pixels[0], 0);
+        t.checkExpect (pixels[1], Color.yellow.getRGB());
+        t.checkExpect (pixels[5], Color.yellow.getRGB());
+        t.checkExpect (pixels[6], 0);
+        t.checkExpect (pixels[8], Color.yellow.getRGB());
+        t.checkExpect (rect.getPixels (1, 3, 2, 2, new int[4])[0], 0);
+    }
+
+    public void testFlatOverlay (Tester t)
+    {
+        WorldImage dot = AImage.makeCircle (2, Color.blue, Mode.FILLED);
+        WorldImage row = redRect;
+        for (int ii = 0; ii < 1000; ++ii)
+            row = row.beside (dot);
+        t.checkExpect (((OverlayImage)row).getImageCount(), 1001);
+        t.checkExpect (row.getWidth(), 50 + 1000 * 4);
+        t.checkExpect (row.getHeight(), 30);
+        t.checkExpect (redRect.beside (dot, dot), redRect.beside(dot).beside(dot));
+        t.checkExpect (redRect.above (dot, redRect), redRect.above(dot).above(redRect));
+    }
+    
+    public void testBuildOverlay (Tester t)
+    {
+        WorldImage dot = AImage.makeCircle (2, Color.blue, Mode.FILLED);
+        // each new part goes into the same array in place, until it's full and gets copied
+        // into one twice as big, so building it takes linear time
+        WorldImage scene = redRect.overlay (dot);
+        int copies = 0;
+        for (int ii = 1; ii < 20000; ++ii)
+        {
+            WorldImage next = scene.overlay (dot.moved (ii % 400, ii % 300));
+            if (((OverlayImage)next).images != ((OverlayImage)scene).images)
+                ++copies;
+            scene = next;
+        }
+        t.checkExpect (((OverlayImage)scene).getImageCount(), 20001);
+        t.checkExpect (copies <= 15, true, "the parts were copied " + copies + " times");
+        
+        // two overlays built on the same one mustn't share their new parts
+        WorldImage base = redRect.overlay (dot);
+        WorldImage first = base.overlay (cal);
+        WorldImage second = base.overlay (dot.moved (5, 5));
+        t.checkExpect (((OverlayImage)base).getImageCount(), 2);
+        t.checkExpect (((OverlayImage)first).getImage (2), cal);
+        t.checkExpect (((OverlayImage)second).getImage (2), dot.moved (5, 5));
+        t.checkExpect (first, redRect.overlay (dot, cal));
+        t.checkExpect (first.hashCode(), redRect.overlay (dot, cal).hashCode());
+        t.checkExpect (first.getRight(), redRect.overlay (dot, cal).getRight());
+    }
+    
+    public void testLooksAlmostSame (Tester t)
+    {
+        WorldImage red = AImage.makeRectangle (200, 100, new Color (200, 0, 0), Mode.FILLED);
+        WorldImage nearlyRed = AImage.makeRectangle (200, 100, new Color (205, 3, 0), Mode.FILLED);
+        t.checkExpect (WorldImage.LOOKS_ALMOST_SAME.equivalent (red, nearlyRed), true);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (red, nearlyRed), false);
+        t.checkExpect (WorldImage.LOOKS_ALMOST_SAME.equivalent (red, redRect), false);
+        
+        WorldImage spotted = red.overlay (AImage.makeRectangle (2, 2, Color.blue, Mode.FILLED).moved (50, 50));
+        t.checkExpect (WorldImage.LOOKS_ALMOST_SAME.equivalent (red, spotted), false);
+        t.checkExpect (new LooksAlmostTheSame (0, 4).equivalent (red, spotted), true);
+        t.checkExpect (new LooksAlmostTheSame (0, 3).equivalent (red, spotted), false);
+        
+        WorldImage[] big = {
+            AImage.makeText ("Hello world", 40),
+            AImage.makeCircle (60, Color.blue, Mode.FILLED),
+            AImage.makeCircle (60, Color.blue, Mode.OUTLINED),
+            AImage.makeRectangle (100, 70, Color.green, Mode.OUTLINED),
+            red.rotatedInPlace (30)
+        };
+        for (WorldImage image : big)
+            t.checkExpect (WorldImage.LOOKS_ALMOST_SAME.equivalent (image, image.frozen()), true,
+                           "a big image looks almost the same as its frozen copy");
+    }
+    
+    public void testConvolved (Tester t)
+    {
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (redRect.blurred (2), redRect), true,
+                       "blurring a solid rectangle leaves it alone");
+        boolean refused = false;
+        try
+        {
+            redRect.blurred (-1);
+        }
+        catch (IllegalArgumentException e)
+        {
+            refused = true;
+        }
+        t.checkExpect (refused, true, "a negative radius is an error");
+        WorldImage stripes = AImage.buildARGB (4, 1, new IntImageBuilder<Object>() {
+                public int pixelARGB (int x, int y, Object other) {
+                    return x < 2 ? 0xFF000000 : 0xFFFFFFFF;
+                }
+            });
+        WorldImage smeared = stripes.convolved (new double[] { 0.5, 0.5, 0 }, new double[] { 1 });
+        t.checkExpect (smeared.getPixelColor (0, 0), Color.black);
+        t.checkExpect (smeared.getPixelColor (2, 0), new Color (128, 128, 128));
+        WorldImage shifted = stripes.mapWithNeighbors (new ImageStencil<Object>() {
+                public int pixelARGB (int x, int y, PixelView source, Object other) {
+                    return source.getARGBClamped (x + 1, y);
+                }
+            }, null);
+        t.checkExpect (shifted.getPixelColor (1, 0), Color.white);
+    }
+    
+    public void testHashCode (Tester t)
+    {
+        // equal transforms, one with -0.0 where the other has 0.0
+        WorldImage plain = LinearImage.make (new java.awt.geom.AffineTransform (0, 1, -1, 0, 5, 5),
+                                             redRect);
+        WorldImage negativeZero = LinearImage.make (
+            new java.awt.geom.AffineTransform (-0.0, 1, -1, 0, 5, 5), redRect);
+        t.checkExpect (plain.hashCode(), negativeZero.hashCode());
+        t.checkExpect (plain.equals (negativeZero), true);
+        WorldImage scene1 = redRect.overlay (cal.moved (5, 5).cropped (0, 20, 0, 20));
+        WorldImage scene2 = redRect.overlay (cal.moved (5, 5).cropped (0, 20, 0, 20));
+        t.checkExpect (scene1.hashCode(), scene2.hashCode());
+        t.checkExpect (scene1.frozen().hashCode(), scene2.frozen().hashCode());
+        t.checkExpect (scene1.frozen() == scene1.frozen(), true, "frozen copy is memoized");
+        t.checkExpect (scene1.equals (scene2), true);
+        t.checkExpect (scene1.equals (redRect.overlay (cal.moved (6, 5))), false);
+    }
+    
+    public void testContains (Tester t)
+    {
+        WorldImage disk = AImage.makeCircle (10, Color.red, Mode.FILLED);
+        t.checkExpect (disk.contains (new Posn (10, 10)), true);
+        t.checkExpect (disk.contains (new Posn (1, 1)), false, "corner of the bounding box");
+        t.checkExpect (disk.moved (30, 0).contains (new Posn (40, 10)), true);
+        t.checkExpect (disk.cropped (0, 10, 0, 20).contains (new Posn (15, 10)), false);
+        t.checkExpect (AImage.makeCircle (10, Color.red, Mode.OUTLINED).contains (new Posn (10, 10)),
+                       false, "an outline doesn't cover its inside");
+        t.checkExpect (disk.intersects (disk.moved (18, 18)), false, "bounding boxes overlap");
+        t.checkExpect (disk.intersects (disk.moved (14, 0)), true);
+        t.checkExpect (disk.overlay (disk.moved (100, 0)).intersects (redRect.moved (95, -5)), true);
+    }
+    
+    public void testSceneIndex (Tester t)
+    {
+        WorldImage disk = AImage.makeCircle (10, Color.red, Mode.FILLED);
+        WorldImage scene = redRect.overlay (disk.moved (100, 0), disk.moved (105, 0)).moved (5, 5);
+        SceneIndex index = scene.getSceneIndex();
+        t.checkExpect (index.size(), 3);
+        t.checkExpect (scene.getSceneIndex() == index, true, "the index is kept");
+        t.checkExpect (index.leavesAt (new Posn (115, 15)), new int[] { 1, 2 });
+        t.checkExpect (index.topLeafAt (new Posn (115, 15)), disk.moved (110, 5));
+        t.checkExpect (index.topLeafAt (new Posn (80, 80)), null);
+        t.checkExpect (index.leavesIn (0, 0, 40, 40), new int[] { 0 });
+    }
+    
+    public void testCulling (Tester t)
+    {
+        WorldImage disk = AImage.makeCircle (10, Color.red, Mode.FILLED);
+        WorldImage scene = redRect.overlay (disk.moved (100, 0), disk.moved (500, 500));
+        java.awt.image.BufferedImage buffer =
+            new java.awt.image.BufferedImage (200, 100, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+        java.awt.Graphics2D g = buffer.createGraphics();
+        g.setClip (0, 0, 200, 100);
+        AImage.resetCulledCount();
+        scene.draw (g);
+        t.checkExpect (AImage.getCulledCount(), 1L, "only the far-away disk is skipped");
+        t.checkExpect (new Color (buffer.getRGB (110, 10), true), Color.red);
+        
+        // A crop only draws through the scene's index if the index was already built.
+        WorldImage window = scene.cropped (90, 130, 0, 30);
+        window.draw (g);
+        t.checkExpect (((AImage)scene).hasSceneIndex(), false, "drawing doesn't build an index");
+        scene.getSceneIndex();
+        AImage.resetCulledCount();
+        window.draw (g);
+        t.checkExpect (AImage.getCulledCount(), 2L, "the index skips the rectangle and the far disk");
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (window,
+                           redRect.overlay (disk.moved (100, 0), disk.moved (500, 500))
+                                  .cropped (90, 130, 0, 30)), true);
+    }
+    
+    public void testCompile (Tester t)
+    {
+        WorldImage disk = AImage.makeCircle (10, Color.red, Mode.OUTLINED);
+        WorldImage scene = redRect.overlay (disk.moved (30, 0), cal.rotatedInPlace (30).moved (5, 5))
+                                  .cropped (0, 40, 0, 40);
+        WorldImage compiled = scene.compile();
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (compiled, scene), true);
+        t.checkExpect (((CompiledImage)compiled).getOperationCount(), 5, "clip, 3 parts, unclip");
+        t.checkExpect (compiled.compile() == compiled, true);
+        t.checkExpect (compiled.equals (scene.compile()), true);
+    }
+    
+    public void testBatching (Tester t)
+    {
+        WorldImage dot = AImage.makeCircle (3, Color.blue, Mode.FILLED);
+        WorldImage dots = dot.overlay (dot.moved (10, 0), dot.moved (20, 5),
+                                       AImage.makeRectangle (4, 4, Color.blue, Mode.FILLED).moved (0, 10),
+                                       AImage.makeRectangle (4, 4, Color.red, Mode.FILLED).moved (9, 9),
+                                       dot.moved (15, 15));
+        WorldImage compiled = dots.compile();
+        t.checkExpect (((CompiledImage)compiled).getOperationCount(), 3, "blue, red, blue");
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (compiled, dots), true);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (compiled.rotatedInPlace (20),
+                                                         dots.rotatedInPlace (20)), true);
+        WorldImage ghost = AImage.makeCircle (3, new Color (0, 0, 255, 128), Mode.FILLED);
+        t.checkExpect (((CompiledImage)ghost.overlay (ghost.moved (2, 0)).compile())
+                       .getOperationCount(), 2, "translucent shapes aren't batched");
+    }
+    
+    public void testTileMap (Tester t)
+    {
+        WorldImage red = AImage.makeRectangle (10, 10, Color.red, Mode.FILLED);
+        WorldImage blue = AImage.makeRectangle (10, 10, Color.blue, Mode.FILLED);
+        TileMapImage board = AImage.makeTileMap (red.overlay (blue.moved (10, 0)), 10, 10, 2,
+                                                 new int[] { 0, 1, TileMapImage.EMPTY, 1 });
+        t.checkExpect (board.getWidth(), 20);
+        t.checkExpect (board.getHeight(), 20);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (board,
+            red.overlay (blue.moved (10, 0), blue.moved (10, 10)).cropped (0, 20, 0, 20)), true);
+        t.checkExpect (board.contains (new Posn (5, 15)), false, "empty square");
+        t.checkExpect (board.contains (new Posn (15, 15)), true);
+        
+        TileMapImage changed = board.withTile (0, 1, 0);
+        t.checkExpect (changed.getTile (0, 1), 0);
+        t.checkExpect (board.getTile (0, 1), TileMapImage.EMPTY, "the old board is unchanged");
+        t.checkExpect (changed.getTile (0, 1), 0);
+        t.checkExpect (changed.equals (board), false);
+        t.checkExpect (changed.withTile (0, 1, TileMapImage.EMPTY), board);
+        t.checkExpect (changed.withTile (0, 1, TileMapImage.EMPTY).hashCode(), board.hashCode());
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (changed.moved (5, 5).overlay (blue),
+            red.overlay (blue.moved (10, 0), red.moved (0, 10), blue.moved (10, 10))
+               .cropped (0, 20, 0, 20).moved (5, 5).overlay (blue)), true);
+    }
+    
+    public void testCached (Tester t)
+    {
+        WorldImage scene = redRect.overlay (cal.moved (5, 5));
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (scene.cached(), scene), true);
+        t.checkExpect (scene.cached().equals (redRect.overlay (cal.moved (5, 5)).cached()), true);
+        t.checkExpect (scene.cached().cached(), scene.cached());
+        WorldImage moved = scene.cached().moved (30, 10);
+        t.checkExpect (moved.getLeft(), scene.getLeft() + 30);
+        t.checkExpect (moved.cached(), moved);
+        t.checkExpect (WorldImage.LOOKS_SAME.equivalent (scene.moved (30, 10).cached(), moved), true);
+    }
+    
+    /**
+     * Draw one scene and then another on a canvas that repaints incrementally, with a
+     * marker pixel put into its corner, behind its back, in between.
+     *
+     * @return the canvas's pixels
+     */
+    private static int[] redraw (WorldImage first, WorldImage second)
+    {
+        javalib.worldcanvas.CanvasPanel canvas = new javalib.worldcanvas.CanvasPanel (200, 150);
+        canvas.setIncrementalRepaint (true);
+        canvas.drawScene (first);
+        canvas.getBuffer().setRGB (199, 149, Color.magenta.getRGB());
+        canvas.drawScene (second);
+        return canvas.getBuffer().getRGB (0, 0, 200, 150, null, 0, 200);
+    }
+    
+    /**
+     * Draw a scene from scratch on a canvas.
+     *
+     * @return the canvas's pixels
+     */
+    private static int[] redraw (WorldImage scene)
+    {
+        javalib.worldcanvas.CanvasPanel canvas = new javalib.worldcanvas.CanvasPanel (200, 150);
+        canvas.drawScene (scene);
+        return canvas.getBuffer().getRGB (0, 0, 200, 150, null, 0, 200);
+    }
+    
+    public void testIncrementalRepaint (Tester t)
+    {
+        WorldImage back = AImage.makeRectangle (60, 40, Color.green, Mode.FILLED).moved (10, 10);
+        WorldImage disk = AImage.makeCircle (15, Color.blue, Mode.FILLED).moved (50, 30);
+        WorldImage ring = AImage.makeCircle (12, Color.red, Mode.OUTLINED).moved (120, 60);
+        WorldImage front = AImage.makeRectangle (30, 20, Color.orange, Mode.FILLED).moved (150, 100);
+        WorldImage before = back.overlay (disk, ring, front);
+        WorldImage[] afters = {
+            back.overlay (disk.moved (25, 5), ring, front),            // moved, over another part
+            back.overlay (ring, front),                                // removed
+            back.overlay (disk, ring, front, cal.moved (90, 5)),       // added at the front
+            back.overlay (disk, AImage.makeCircle (12, Color.black, Mode.OUTLINED).moved (120, 60),
+                          front),                                      // recolored
+            back.overlay (ring.moved (-5, 0), disk, front)             // reordered
+        };
+        for (WorldImage after : afters)
+        {
+            int[] incremental = redraw (before, after);
+            t.checkExpect (incremental[200 * 150 - 1], Color.magenta.getRGB(),
+                           "only the changed regions were redrawn");
+            incremental[200 * 150 - 1] = Color.white.getRGB();
+            t.checkExpect (java.util.Arrays.equals (incremental, redraw (after)), true,
+                           "redrawing only what changed looks like redrawing everything");
+        }
+        
+        int[] same = redraw (before, back.overlay (disk, ring, front));
+        t.checkExpect (same[200 * 150 - 1], Color.magenta.getRGB(), "nothing was redrawn");
+        same[200 * 150 - 1] = Color.white.getRGB();
+        t.checkExpect (java.util.Arrays.equals (same, redraw (before)), true);
+        
+        // most of the canvas changed, so it's all redrawn
+        WorldImage big = before.overlay (AImage.makeRectangle (180, 130, Color.yellow, Mode.FILLED)
+                                            .moved (10, 10));
+        int[] full = redraw (before, big);
+        t.checkExpect (full[200 * 150 - 1], Color.white.getRGB(), "everything was redrawn");
+        t.checkExpect (java.util.Arrays.equals (full, redraw (big)), true);
+        int[] back2 = redraw (big, before);
+        t.checkExpect (java.util.Arrays.equals (back2, redraw (before)), true);
+    }
+    
+    public void testTextMetrics (Tester t)
+    {
+        // measured the way TextImages were before they had a cache, in a canvas's buffer
+        java.awt.Graphics2D g = new javalib.worldcanvas.CanvasPanel (600, 600).getBufferGraphics();
+        String[] texts = { "Hello, world", "gyp", "W", "  spaced  " };
+        float[] sizes = { 8, 13, 20.5f, 40 };
+        for (TextStyle style : TextStyle.values())
+        {
+            for (float size : sizes)
+            {
+                for (String text : texts)
+                {
+                    java.awt.Rectangle bounds =
+                        new java.awt.font.TextLayout (text, g.getFont().deriveFont (style.toInt(), size),
+                                                      g.getFontRenderContext()).getBounds().getBounds();
+                    TextImage label = TextImage.make (text, size, style);
+                    t.checkExpect (label.getWidth(), bounds.width, "width of " + text);
+                    t.checkExpect (label.getHeight(), bounds.height, "height of " + text);
+                    t.checkExpect (label.metrics.ascent, - bounds.y, "ascent of " + text);
+                }
+            }
+        }
+        g.dispose();
+        
+        TextImage label = TextImage.make ("Score: 42", 20, TextStyle.BOLD, Color.red);
+        t.checkExpect (TextImage.make ("Score: 42", 20, TextStyle.BOLD, Color.red).metrics == label.metrics, true,
+                       "the same label is only measured once");
+        t.checkExpect (TextImage.make ("Score: 42", 20, TextStyle.BOLD, Color.blue).metrics == label.metrics, true,
+                       "whatever its color");
+        t.checkExpect (TextImage.make ("Score: 42", 20, TextStyle.ITALIC, Color.red).metrics == label.metrics, false);
+        t.checkExpect (TextImage.make ("Score: 42", 21, TextStyle.BOLD, Color.red).metrics == label.metrics, false);
+        t.checkExpect (TextImage.make ("Score: 43", 20, TextStyle.BOLD, Color.red).metrics == label.metrics, false);
+    }
+    
+    /**
+     * Draw a label, under a transform, both the way a TextImage does and the way
+     * TextImages did before they kept their glyphs, with drawString.
+     */
+    private static int[][] drawLabel (String text, float size, java.awt.geom.AffineTransform at)
+    {
+        java.awt.Font font = new java.awt.Font (java.awt.Font.DIALOG, java.awt.Font.PLAIN, 12).deriveFont (size);
+        int ascent = - new java.awt.font.TextLayout (text, font, new java.awt.font.FontRenderContext (null, false, false))
+                          .getBounds().getBounds().y;
+        int[][] result = new int[2][];
+        for (int ii = 0; ii < 2; ++ii)
+        {
+            java.awt.image.BufferedImage buffer =
+                new java.awt.image.BufferedImage (300, 150, java.awt.image.BufferedImage.TYPE_INT_ARGB);
+            java.awt.Graphics2D g = buffer.createGraphics();
+            g.transform (at);
+            if (ii == 0)
+                AImage.makeText (text, size, Color.black).draw (g);
+            else
+            {
+                g.setColor (Color.black);
+                g.setFont (font);
+                g.drawString (text, 0, ascent);
+            }
+            g.dispose();
+            result[ii] = buffer.getRGB (0, 0, 300, 150, null, 0, 300);
+        }
+        return result;
+    }
+    
+    public void testTransformedText (Tester t)
+    {
+        java.awt.geom.AffineTransform[] transforms = {
+            new java.awt.geom.AffineTransform (),
+            java.awt.geom.AffineTransform.getTranslateInstance (3, 7),
+            java.awt.geom.AffineTransform.getTranslateInstance (3.5, 7.25),
+            java.awt.geom.AffineTransform.getScaleInstance (0.7, 0.7),
+            java.awt.geom.AffineTransform.getScaleInstance (1.5, 1.5),
+            java.awt.geom.AffineTransform.getScaleInstance (2, 2),
+            java.awt.geom.AffineTransform.getScaleInstance (3, 3),
+            java.awt.geom.AffineTransform.getRotateInstance (0.3, 20, 10)
+        };
+        for (java.awt.geom.AffineTransform at : transforms)
+        {
+            int[][] drawn = drawLabel ("Hello, world", 20, at);
+            t.checkExpect (java.util.Arrays.equals (drawn[0], drawn[1]), true,
+                           "text drawn the same as drawString does, under " + at);
+        }
+    }
 }
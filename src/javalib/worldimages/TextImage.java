@@ -2,15 +2,16 @@ package javalib.worldimages;
 
 
 import javalib.colors.*;
-import javalib.worldcanvas.CanvasPanel;
 
 
 import java.awt.*;
 import java.awt.font.FontRenderContext;
-import java.awt.font.LineMetrics;
+import java.awt.font.GlyphVector;
 import java.awt.font.TextLayout;
+import java.awt.geom.AffineTransform;
 //import java.awt.geom.Point2D;
-import java.awt.geom.Rectangle2D;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 
 /**
@@ -41,14 +42,50 @@ class TextImage extends ColoredImage{
   
   private int ascent;
   
-  /** the Canvas for defining the font for this text image */
-  private static CanvasPanel c = new CanvasPanel(600, 600);
+  /** the font and glyphs to draw with, shared with every other TextImage of this text */
+  Metrics metrics;
   
-  /** the graphics context where the text is to be shown */
-  private static Graphics2D g = c.getBufferGraphics();
+  /** the font, style and size aside, that text is measured in */
+  private static final Font font = new Font(Font.DIALOG, Font.PLAIN, 12);
   
-  /** the current default font in our graphics context */
-  private static Font font = g.getFont(); 
+  /**
+   * How text is measured: the same way as drawing it into a freshly-made buffer, with
+   * no transform, no anti-aliasing and no fractional metrics, but without making one.
+   */
+  private static final FontRenderContext frc = new FontRenderContext(null, false, false);
+  
+  /** How many different texts to remember the measurements of. */
+  private static final int MAX_CACHED = 1024;
+  
+  /**
+   * The measurements of recently-used texts, keyed by style, size and text, so that
+   * a label made again every tick is only measured once.  Only touched holding its lock.
+   */
+  private static final Map<String,Metrics> metricsCache =
+      new LinkedHashMap<String,Metrics>(16, 0.75f, true) {
+          protected boolean removeEldestEntry(Map.Entry<String,Metrics> eldest) {
+              return this.size() > MAX_CACHED;
+          }
+      };
+  
+  /**
+   * The measurements of a text in a particular style and size, which are the same
+   * for every TextImage of that text, whatever its color, along with the derived font
+   * and the glyphs, already shaped in that font, to draw it with.
+   */
+  static final class Metrics {
+    final Font font;
+    final GlyphVector glyphs;
+    final int width, height, ascent;
+    
+    Metrics(Font font, GlyphVector glyphs, int width, int height, int ascent) {
+      this.font = font;
+      this.glyphs = glyphs;
+      this.width = width;
+      this.height = height;
+      this.ascent = ascent;
+    }
+  }
   
   /**
    * A full constructor for this text image.
@@ -129,22 +166,33 @@ class TextImage extends ColoredImage{
       this.text = "";   
     // this.color cannot be null
     
-    // save the current paint and font
+    // save the current paint
     Paint oldPaint = g.getPaint();
-    Font oldFont = g.getFont();
     
-    // change the font style and size as given
-    g.setFont(oldFont.deriveFont(this.style.toInt(), this.size));
     // set the paint to the given color
     g.setPaint(this.getColor());  
     
-    // draw the object
-    g.drawString(this.text, 0, this.ascent);
-                 
+    // draw the object: the glyphs were already laid out, in the right font, style
+    // and size, when the text was measured, so there's no deriving or shaping to do --
+    // unless the context renders text differently (e.g. anti-aliased, or scaled or
+    // rotated), in which case the glyphs have to be laid out again to match it
+    FontRenderContext target = g.getFontRenderContext();
+    if (target.isAntiAliased() == frc.isAntiAliased() &&
+        target.usesFractionalMetrics() == frc.usesFractionalMetrics() &&
+        (g.getTransform().getType() & ~AffineTransform.TYPE_TRANSLATION) == 0)
+    {
+      g.drawGlyphVector(this.metrics.glyphs, 0, this.ascent);
+    }
+    else
+    {
+      Font oldFont = g.getFont();
+      g.setFont(this.metrics.font);
+      g.drawString(this.text, 0, this.ascent);
+      g.setFont(oldFont);
+    }
     
-    // reset the original paint and font
-    g.setPaint(oldPaint);   
-    g.setFont(oldFont);
+    // reset the original paint
+    g.setPaint(oldPaint);
   }
 
   
@@ -156,17 +204,29 @@ class TextImage extends ColoredImage{
    * Graphics2D.draw works from the baseline, so we need to adjust by the ascent.
    */
   protected void setWidthHeight(){
+    Metrics metrics = metricsFor(this.text, this.size, this.style);
+    this.metrics = metrics;
+    this.ascent = metrics.ascent;
+    this.height = metrics.height;
+    this.width = metrics.width;
+  }
+  
+  /**
+   * Look up the measurements of a text in the given style and size, measuring it
+   * if it isn't in the cache.
+   */
+  private static Metrics metricsFor(String text, float size, TextStyle style){
+    String key = style.toInt() + " " + size + " " + text;
+    synchronized (metricsCache) {
+      Metrics cached = metricsCache.get(key);
+      if (cached != null)
+        return cached;
+    }
     
     // change the font style and size as given
-    g.setFont(font.deriveFont(this.style.toInt(), this.size));
-    // now get this new font
-    Font newFont = g.getFont();
-    
-    FontRenderContext frc = g.getFontRenderContext();
+    Font newFont = font.deriveFont(style.toInt(), size);
     
     TextLayout layout = new TextLayout(text, newFont, frc);
-
-    g.setFont(font);
     
     Rectangle bounds = layout.getBounds().getBounds();
     // This is silly.  layout.getBounds() returns a Rectangle2D, but doesn't promise
@@ -174,16 +234,11 @@ class TextImage extends ColoredImage{
     // get the coordinates (although Rectangle2D.Double and Rectangle2D.Float both do),
     // so I have to use "getBounds()" on the Rectangle2D to get an int rectangle that
     // encloses the Rectangle2D.
-    this.ascent = - bounds.y;
-    this.height = bounds.height;
-    this.width = bounds.width;
-    
-    /*
-    System.out.println("Bounds: x = " + bounds.getX() +
-                       "  y = " + bounds.getX() +
-                       "  width = " + bounds.getWidth() +
-                       "  height = " + bounds.getHeight());
-    */
+    Metrics metrics = new Metrics(newFont, newFont.createGlyphVector(frc, text), bounds.width, bounds.height, - bounds.y);
+    synchronized (metricsCache) {
+      metricsCache.put(key, metrics);
+    }
+    return metrics;
   }
 
   /**
@@ -0,0 +1,412 @@
+package javalib.worldimages;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * A board made of tiles, all the same size, each one cut out of a single "atlas" image
+ * (a sprite sheet) by number.  The tiles of the atlas are numbered from 0, left to right
+ * along its top row, then along the next row, and so on; tile number
+ * <code>{@link #EMPTY EMPTY}</code> leaves its square of the board empty.
+ *
+ * <p>A board of hundreds of squares is one image, rather than hundreds of images overlaid
+ * on one another, and drawing it only draws the squares that show, each one copied
+ * straight out of the atlas's pixels.  (The pixels are copied once, when the board is
+ * made, into the premultiplied form that Java2D copies fastest.)</p>
+ *
+ * <p>Like every other image, a TileMapImage never changes: <code>withTile</code> makes a
+ * new one.  But it doesn't copy the board to do it.  The new image takes the board over,
+ * and the old one just remembers the one square that was different, so changing a square
+ * takes the same time however big the board is.  The old image still works, but using it
+ * takes the board back, one change at a time.</p>
+ *
+ * @since Oct. 18, 2026
+ */
+public class TileMapImage extends AImage
+{
+    /** The tile number of an empty square. */
+    public static final int EMPTY = -1;
+
+    private final RasterImage atlas;
+    private final BufferedImage pixels; // the atlas's pixels, premultiplied by their alphas
+    private final int tileWidth, tileHeight;
+    private final int columns, rows;
+    private final int atlasColumns, tileCount;
+    private final Board board;
+    private final int hash;
+
+    /**
+     * One version of the tile numbers of a board.  Of all the versions made from one
+     * another, only one at a time (the one used most recently) holds the array; each of
+     * the others holds how it differs from the next one toward that one.  They all
+     * share a lock.
+     */
+    private static final class Board
+    {
+        final Object lock;
+        int[] tiles; // null unless this version holds the array
+        int index, tile; // otherwise, the one square where this version differs from next
+        Board next;
+
+        Board (int[] tiles, Object lock)
+        {
+            this.tiles = tiles;
+            this.lock = lock;
+        }
+
+        /**
+         * Get the array for this version, taking it over from whichever version has it.
+         * Must be called holding the lock.
+         */
+        int[] reroot ()
+        {
+            if (this.tiles != null)
+                return this.tiles;
+            ArrayList<Board> path = new ArrayList<Board> ();
+            Board holder = this;
+            while (holder.tiles == null)
+            {
+                path.add (holder);
+                holder = holder.next;
+            }
+            int[] tiles = holder.tiles;
+            // Walk back along the path, moving the array one version at a time and
+            // leaving behind how each version differs from the one after it.
+            for (int ii = path.size() - 1; ii >= 0; --ii)
+            {
+                Board step = path.get (ii);
+                holder.tiles = null;
+                holder.index = step.index;
+                holder.tile = tiles[step.index];
+                holder.next = step;
+                tiles[step.index] = step.tile;
+                step.tiles = tiles;
+                step.next = null;
+                holder = step;
+            }
+            return tiles;
+        }
+
+        /**
+         * Make a new version with one square changed, which takes the array over.
+         * Must be called holding the lock.
+         */
+        Board with (int index, int tile)
+        {
+            int[] tiles = this.reroot ();
+            Board newer = new Board (tiles, this.lock);
+            this.tiles = null;
+            this.index = index;
+            this.tile = tiles[index];
+            this.next = newer;
+            tiles[index] = tile;
+            return newer;
+        }
+    }
+
+    /**
+     * Constructor for objects of class TileMapImage
+     */
+    private TileMapImage (RasterImage atlas, BufferedImage pixels, int tileWidth, int tileHeight,
+                          int columns, int rows, Board board, int hash)
+    {
+        this.atlas = atlas;
+        this.pixels = pixels;
+        this.tileWidth = tileWidth;
+        this.tileHeight = tileHeight;
+        this.columns = columns;
+        this.rows = rows;
+        this.atlasColumns = atlas.getWidth() / tileWidth;
+        this.tileCount = this.atlasColumns * (atlas.getHeight() / tileHeight);
+        this.board = board;
+        this.hash = hash;
+    }
+
+    /**
+     * Pseudo-constructor for objects of class TileMapImage.
+     *
+     * @param atlas        the image the tiles are cut out of
+     * @param tileWidth    how wide each tile is
+     * @param tileHeight   how tall each tile is
+     * @param columns      how many squares wide the board is
+     * @param tiles        the tile number of each square, along the top row of the board
+     *                     first, then the next row, and so on
+     */
+    static TileMapImage make (WorldImage atlas, int tileWidth, int tileHeight,
+                              int columns, int[] tiles)
+    {
+        if (tileWidth <= 0 || tileHeight <= 0)
+            throw new IllegalArgumentException ("tiles must be at least 1x1, not " +
+                                                tileWidth + "x" + tileHeight);
+        if (columns <= 0 || tiles.length % columns != 0)
+            throw new IllegalArgumentException ("can't make a board " + columns +
+                                                " squares wide out of " + tiles.length + " tiles");
+        RasterImage raster = atlas.frozen();
+        if (raster.getWidth() < tileWidth || raster.getHeight() < tileHeight)
+            throw new IllegalArgumentException ("the atlas is smaller than one " +
+                                                tileWidth + "x" + tileHeight + " tile");
+
+        raster.renderIfNecessary();
+        BufferedImage pixels = new BufferedImage (raster.getWidth(), raster.getHeight(),
+                                                  BufferedImage.TYPE_INT_ARGB_PRE);
+        Graphics2D pixelsG = pixels.createGraphics();
+        pixelsG.setComposite (AlphaComposite.Src);
+        pixelsG.drawImage (raster.rendering, 0, 0, null);
+        pixelsG.dispose();
+
+        int[] copy = Arrays.copyOf (tiles, tiles.length);
+        int hash = 0;
+        for (int ii = 0; ii < copy.length; ++ii)
+            hash += tileHash (ii, copy[ii]);
+        hash += rotate (tileWidth, 8) + rotate (tileHeight, 16) + rotate (columns, 24) +
+                raster.hashCode();
+        TileMapImage result = new TileMapImage (raster, pixels, tileWidth, tileHeight,
+                                                columns, copy.length / columns,
+                                                new Board (copy, new Object ()),
+                                                TileMapImage.class.getName().hashCode() + hash);
+        for (int tile : copy)
+            result.checkTile (tile);
+        return result;
+    }
+
+    /**
+     * What one square adds to the hash.  The hash is the sum of these, so changing a
+     * square changes the hash without going over the whole board.
+     */
+    private static int tileHash (int index, int tile)
+    {
+        return (index * 0x9E3779B9 + 0x7F4A7C15) * (tile + 2);
+    }
+
+    private void checkTile (int tile)
+    {
+        if (tile != EMPTY && (tile < 0 || tile >= this.tileCount))
+            throw new IllegalArgumentException ("there's no tile " + tile + " in an atlas of " +
+                                                this.tileCount + " tiles");
+    }
+
+    private int indexOf (int column, int row)
+    {
+        if (column < 0 || column >= this.columns || row < 0 || row >= this.rows)
+            throw new IllegalArgumentException ("there's no square (" + column + ", " + row +
+                                                ") on a board of " + this.columns + "x" +
+                                                this.rows + " squares");
+        return row * this.columns + column;
+    }
+
+    /**
+     * Which tile is in a square of the board?
+     *
+     * @param column   which column, counting from 0 at the left
+     * @param row      which row, counting from 0 at the top
+     * @return the tile number, or <code>EMPTY</code>
+     */
+    public int getTile (int column, int row)
+    {
+        int index = this.indexOf (column, row);
+        synchronized (this.board.lock)
+        {
+            return this.board.reroot()[index];
+        }
+    }
+
+    /**
+     * Functional setter for one square of the board.  Takes constant time, however big
+     * the board is.
+     *
+     * @param column   which column, counting from 0 at the left
+     * @param row      which row, counting from 0 at the top
+     * @param tile     the tile number to put there, or <code>EMPTY</code>
+     * @return a new board just like this one, but with that tile in that square
+     */
+    public TileMapImage withTile (int column, int row, int tile)
+    {
+        int index = this.indexOf (column, row);
+        this.checkTile (tile);
+        synchronized (this.board.lock)
+        {
+            int old = this.board.reroot()[index];
+            if (old == tile)
+                return this;
+            return new TileMapImage (this.atlas, this.pixels, this.tileWidth, this.tileHeight,
+                                     this.columns, this.rows, this.board.with (index, tile),
+                                     this.hash - tileHash (index, old) + tileHash (index, tile));
+        }
+    }
+
+    /**
+     * Getter for the width of the board, in squares.
+     *
+     * @return how many columns of squares the board has
+     */
+    public int getColumns ()
+    {
+        return this.columns;
+    }
+
+    /**
+     * Getter for the height of the board, in squares.
+     *
+     * @return how many rows of squares the board has
+     */
+    public int getRows ()
+    {
+        return this.rows;
+    }
+
+    /**
+     * Getter for the width of a tile.
+     *
+     * @return how wide each square is, in pixels
+     */
+    public int getTileWidth ()
+    {
+        return this.tileWidth;
+    }
+
+    /**
+     * Getter for the height of a tile.
+     *
+     * @return how tall each square is, in pixels
+     */
+    public int getTileHeight ()
+    {
+        return this.tileHeight;
+    }
+
+    /**
+     * Getter for the atlas the tiles are cut out of.
+     *
+     * @return the atlas
+     */
+    public RasterImage getAtlas ()
+    {
+        return this.atlas;
+    }
+
+    /**
+     * Draw the squares that might show in the clip, and count the others as culled.
+     */
+    public void draw (Graphics2D g)
+    {
+        int firstColumn = 0, lastColumn = this.columns;
+        int firstRow = 0, lastRow = this.rows;
+        Rectangle visible = visibleArea (g);
+        if (visible != null)
+        {
+            firstColumn = Math.max (firstColumn, Math.floorDiv (visible.x - 1, this.tileWidth));
+            lastColumn = Math.min (lastColumn,
+                                   Math.floorDiv (visible.x + visible.width + 1, this.tileWidth) + 1);
+            firstRow = Math.max (firstRow, Math.floorDiv (visible.y - 1, this.tileHeight));
+            lastRow = Math.min (lastRow,
+                                Math.floorDiv (visible.y + visible.height + 1, this.tileHeight) + 1);
+            if (firstColumn >= lastColumn || firstRow >= lastRow)
+            {
+                countCulled (this.columns * this.rows);
+                return;
+            }
+            countCulled (this.columns * this.rows -
+                         (lastColumn - firstColumn) * (lastRow - firstRow));
+        }
+
+        BufferedImage pixels = this.pixels;
+        int width = this.tileWidth, height = this.tileHeight;
+        synchronized (this.board.lock)
+        {
+            int[] tiles = this.board.reroot();
+            for (int row = firstRow; row < lastRow; ++row)
+            {
+                int y = row * height;
+                for (int column = firstColumn; column < lastColumn; ++column)
+                {
+                    int tile = tiles[row * this.columns + column];
+                    if (tile == EMPTY)
+                        continue;
+                    int x = column * width;
+                    int sx = (tile % this.atlasColumns) * width;
+                    int sy = (tile / this.atlasColumns) * height;
+                    g.drawImage (pixels, x, y, x + width, y + height,
+                                 sx, sy, sx + width, sy + height, null);
+                }
+            }
+        }
+    }
+
+    /**
+     * A point is in the board if it's on a pixel of a tile that isn't transparent.
+     */
+    boolean containsPoint (double x, double y)
+    {
+        int column = (int)Math.floor (x / this.tileWidth);
+        int row = (int)Math.floor (y / this.tileHeight);
+        if (column < 0 || column >= this.columns || row < 0 || row >= this.rows)
+            return false;
+        int tile = this.getTile (column, row);
+        if (tile == EMPTY)
+            return false;
+        return this.atlas.containsPoint (
+            (tile % this.atlasColumns) * this.tileWidth + x - column * this.tileWidth,
+            (tile / this.atlasColumns) * this.tileHeight + y - row * this.tileHeight);
+    }
+
+    /**
+     * Get a copy of the tile numbers of the board.
+     */
+    private int[] copyTiles ()
+    {
+        synchronized (this.board.lock)
+        {
+            int[] tiles = this.board.reroot();
+            return Arrays.copyOf (tiles, tiles.length);
+        }
+    }
+
+    public boolean equals (Object other)
+    {
+        if (this == other)
+            return true;
+        if (! super.equals (other))
+            return false;
+        TileMapImage that = (TileMapImage)other;
+        if (this.hash != that.hash || this.tileWidth != that.tileWidth ||
+            this.tileHeight != that.tileHeight || this.columns != that.columns ||
+            this.rows != that.rows ||
+            (this.atlas != that.atlas && ! this.atlas.equals (that.atlas)))
+            return false;
+        if (this.board == that.board)
+            return true;
+        // Copy one board before looking at the other, so as never to hold both locks.
+        return Arrays.equals (this.copyTiles(), that.copyTiles());
+    }
+
+    public int hashCode ()
+    {
+        return this.hash;
+    }
+
+    public int getRight ()
+    {
+        return this.columns * this.tileWidth;
+    }
+
+    public int getBottom ()
+    {
+        return this.rows * this.tileHeight;
+    }
+
+    public String toIndentedString (String indent)
+    {
+        String newIndent = indent + "  ";
+        return "new TileMapImage(this.tileWidth = " + this.tileWidth +
+        ", this.tileHeight = " + this.tileHeight +
+        ", this.columns = " + this.columns + ", this.rows = " + this.rows +
+        ",\n" + newIndent + "this.tiles = " + Arrays.toString (this.copyTiles()) +
+        ",\n" + newIndent + "this.atlas = " + this.atlas.toIndentedString (newIndent) +
+        ",\n" + newIndent + this.cornerString() +
+        ")";
+    }
+}
@@ -50,6 +50,14 @@ public interface WorldImage extends ISame<WorldImage>, Drawable
      */
     public static final Equivalence<WorldImage> LOOKS_SAME = LooksTheSame.it;
     
+    /**
+     * An equivalence operator that forgives small differences in color, such as
+     * anti-aliasing that varies from one JVM to another.
+     * 
+     * @since Oct. 18, 2026
+     */
+    public static final Equivalence<WorldImage> LOOKS_ALMOST_SAME = LooksAlmostTheSame.it;
+    
     /**
      * Get a hash code for the WorldImage.
      * 
@@ -355,12 +363,51 @@ public interface WorldImage extends ISame<WorldImage>, Drawable
     /**
      * Get a WorldImage just like this one, but with a memoized raster rendering.
      * To be used as a "hint" for large, complex images that are likely to be
-     * displayed many times before being modified.
+     * displayed many times before being modified.  Calling it again on the same image
+     * returns the same RasterImage, which is rendered at most once even if several
+     * threads use it at once.
      * 
      * @return a RasterImage that memoizes the rendering of this image
      */
     public RasterImage frozen();
     
+    /**
+     * Get a WorldImage that looks just like this one, but whose rendering is kept in a
+     * table shared by every cached image, so any cached image <code>equals</code> to this
+     * one is drawn with a single blit of the same rendering.  To be used as a "hint" for
+     * parts of a scene (<em>e.g.</em> backgrounds and sprites) that are built afresh on
+     * every tick but come out the same every time.  A cached image can be moved around
+     * without being rendered again.
+     * 
+     * @return an image that looks like this one and draws from a shared rendering
+     * @since Oct. 18, 2026
+     */
+    public WorldImage cached();
+    
+    /**
+     * Get a spatial index of the leaves of this image (the parts that aren't overlays or
+     * transforms of other images), for finding the ones at a point or in a rectangle
+     * without looking at all the others: <em>e.g.</em> to find which sprite a mouse click
+     * landed on.  The index is built the first time it's asked for, and kept; once it's
+     * built, cropping the image draws only the leaves that show through the crop.
+     * 
+     * @return an index of the leaves of this image
+     * @since Oct. 18, 2026
+     */
+    public SceneIndex getSceneIndex();
+    
+    /**
+     * Get a WorldImage that looks just like this one, but that's been flattened into a
+     * list of primitive drawing operations, with all the transforms multiplied out, so
+     * drawing it is one quick loop instead of a walk over the whole tree.  To be used as a
+     * "hint" for big scenes (tens of thousands of shapes) that are drawn several times
+     * before they change.
+     * 
+     * @return an image that looks like this one and draws from a display list
+     * @since Oct. 18, 2026
+     */
+    public WorldImage compile();
+    
     /**
      * Create a rectangular image pixel by pixel from an existing image.
      *
@@ -383,6 +430,97 @@ public interface WorldImage extends ISame<WorldImage>, Drawable
      * @since  Dec. 28, 2012
      */
     public WorldImage map (ImageMap map);
+    
+    /**
+     * Create a rectangular image pixel by pixel from an existing image, with colors
+     * as packed ARGB ints.
+     *
+     * @param map    an IntImageMap encapsulating a function from packed color
+     *               to packed color
+     * @param extra  an arbitrary addtional argument to pass to the function
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage mapARGB (IntImageMap map, Object extra);
+    
+    /**
+     * Create a rectangular image pixel by pixel from an existing image, with colors
+     * as packed ARGB ints.
+     * 
+     * In this entrypoint, the "extra" parameter defaults to null.
+     *
+     * @param map    an IntImageMap encapsulating a function from packed color
+     *               to packed color
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage mapARGB (IntImageMap map);
+    
+    /**
+     * Create a rectangular image pixel by pixel from an existing image, using all
+     * available processors.
+     * 
+     * <p>The result is exactly the same as from <code>map</code>, but the map must be
+     * stateless, since it's called for many pixels at once, in no particular order.</p>
+     *
+     * @param map    an ImageMap encapsulating a function from Color to
+     *               Color
+     * @param extra  an arbitrary addtional argument to pass to the function
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage mapParallel (ImageMap map, Object extra);
+    
+    /**
+     * Create a rectangular image pixel by pixel from an existing image, where each new
+     * pixel may depend on any of the existing pixels (<em>e.g.</em> its neighbors).
+     *
+     * @param stencil an ImageStencil encapsulating a function from a location and the
+     *                existing pixels to a packed ARGB color
+     * @param extra   an arbitrary addtional argument to pass to the function
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage mapWithNeighbors (ImageStencil stencil, Object extra);
+    
+    /**
+     * Convolve an image with a separable kernel, <em>i.e.</em> replace each pixel with
+     * a weighted sum of the pixels around it, where the weight of a pixel <code>dx</code>
+     * across and <code>dy</code> down from it is
+     * <code>horizontal[radius+dx] * vertical[radius+dy]</code>.
+     *
+     * @param horizontal  the weights across a row, of odd length, centered on the pixel
+     * @param vertical    the weights down a column, of odd length, centered on the pixel
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage convolved (double[] horizontal, double[] vertical);
+    
+    /**
+     * Blur an image, replacing each pixel with the average of the square of pixels
+     * around it.
+     *
+     * @param radius  how far to look in each direction: 2 averages a 5x5 square
+     * @return a new image the same size and shape as this
+     * @throws IllegalArgumentException if the radius is negative
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage blurred (int radius);
+    
+    /**
+     * Create a rectangular image pixel by pixel from an existing image, with colors
+     * as packed ARGB ints, using all available processors.
+     * 
+     * <p>The result is exactly the same as from <code>mapARGB</code>, but the map must be
+     * stateless, since it's called for many pixels at once, in no particular order.</p>
+     *
+     * @param map    an IntImageMap encapsulating a function from packed color
+     *               to packed color
+     * @param extra  an arbitrary addtional argument to pass to the function
+     * @return a new image the same size and shape as this
+     * @since  Oct. 18, 2026
+     */
+    public WorldImage mapARGBParallel (IntImageMap map, Object extra);
 
 
     /**
@@ -402,4 +540,52 @@ public interface WorldImage extends ISame<WorldImage>, Drawable
      * @since      Feb. 21, 2013
      */
     public Color getPixelColor (int x, int y);
+
+    /**
+     * Get the colors of a rectangle of pixels of an image, all at once.
+     * 
+     * <p>Much faster than calling <code>getPixelColor</code> on each pixel, when you need
+     * lots of them.  Pixels outside the image come out transparent (0).</p>
+     * 
+     * @param x       the x coordinate of the top-left corner of the rectangle
+     * @param y       the y coordinate of the top-left corner of the rectangle
+     * @param width   the width of the rectangle
+     * @param height  the height of the rectangle
+     * @param pixels  an array of at least <code>width*height</code> ints to fill in, or
+     *                <code>null</code> to allocate a new one
+     * @return     the colors, as packed ARGB ints (as in <code>Color.getRGB()</code>),
+     *             row by row from the top-left corner
+     * @since      Oct. 18, 2026
+     */
+    public int[] getPixels (int x, int y, int width, int height, int[] pixels);
+
+    /**
+     * Does this image cover a specified pixel?
+     * 
+     * <p>Worked out from the shapes the image is made of (so an outlined shape covers only
+     * its outline, and a rotated rectangle only the pixels inside it), not by rendering it;
+     * parts of the image whose bounding boxes don't include the pixel aren't even looked at.
+     * Text covers its whole bounding box, and a raster image covers the pixels that aren't
+     * completely transparent.</p>
+     * 
+     * @param p    the pixel, in the same coordinates as the image
+     * @return     true if drawing the image would paint the pixel (give or take
+     *             anti-aliasing and the exact rounding of outlines)
+     * @since      Oct. 18, 2026
+     */
+    public boolean contains (Posn p);
+
+    /**
+     * Do this image and another one overlap?
+     * 
+     * <p>Worked out from the shapes the images are made of, as for <code>contains</code>,
+     * so two circles whose bounding boxes overlap only at the corners don't intersect.
+     * Parts of either image whose bounding boxes don't meet the other image's aren't
+     * looked at.</p>
+     * 
+     * @param other   the other image, in the same coordinates as this one
+     * @return     true if some point is inside both images
+     * @since      Oct. 18, 2026
+     */
+    public boolean intersects (WorldImage other);
 }
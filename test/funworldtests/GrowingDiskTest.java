@@ -4,6 +4,7 @@ package funworldtests;
 
 import tester.*;
 import javalib.worldimages.*;
+import javalib.funworld.HeadlessRunner;
 import java.awt.Color;
 
 /**
@@ -51,4 +52,18 @@ public class GrowingDiskTest extends junit.framework.TestCase
     {
         new GrowingDisk (1).bigBang (200, 200, 0.1);
     }
+    
+    public void testHeadless (Tester t)
+    {
+        HeadlessRunner runner = new GrowingDisk (1).bigBangHeadless (200, 200);
+        runner.tick (10);
+        t.checkExpect (((GrowingDisk)runner.getWorld()).getModel(), 11);
+        t.checkExpect (runner.hasEnded(), false);
+        t.checkExpect (runner.render().getRGB (100, 10), Color.white.getRGB());
+        t.checkExpect (runner.render().getRGB (10, 10), Color.blue.getRGB());
+        
+        runner.tick (1000);
+        t.checkExpect (((GrowingDisk)runner.getWorld()).getModel(), 100);
+        t.checkExpect (runner.hasEnded(), true);
+    }
 }